@@ -0,0 +1,124 @@
+package io.github.HenriqueMichelini.craftalism_market.benchmark;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.PriceHistory;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+
+/**
+ * Shared fixtures for benchmarks that run without a server.
+ */
+final class BenchmarkFixtures {
+    static final int PLAYER_INVENTORY_SIZE = 36;
+
+    private BenchmarkFixtures() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Creates an item shaped like the cobblestone entry of the default items.yml.
+     */
+    static MarketItem createItem(Material material) {
+        return new MarketItem(
+                "natural_resources", material, 0,
+                3700L, 3700L, 15L, 0.15,
+                2000, 2000, 2000,
+                1.0, 0.05, 0L, 0, 0L,
+                PriceHistory.of(PriceHistory.DEFAULT_CAPACITY, 3700L)
+        );
+    }
+
+    /**
+     * Writes a data folder whose items.yml holds {@code itemCount} items, all depleted below base stock.
+     */
+    static File createDataFolder(int itemCount) throws IOException {
+        File folder = Files.createTempDirectory("craftalism-market-bench").toFile();
+        folder.deleteOnExit();
+
+        StringBuilder yaml = new StringBuilder("items:\n");
+        for (int i = 0; i < itemCount; i++) {
+            yaml.append("  item_").append(i).append(":\n")
+                    .append("    material: COBBLESTONE\n")
+                    .append("    category: natural_resources\n")
+                    .append("    slot: ").append(i % 45).append('\n')
+                    .append("    base_price: 3700\n")
+                    .append("    current_price: 3700\n")
+                    .append("    price_variation: 15\n")
+                    .append("    tax_rate: 0.15\n")
+                    .append("    original_stock: 2000\n")
+                    .append("    base_stock: 2000\n")
+                    .append("    current_stock: 1000\n")
+                    .append("    stock_surplus: 0\n")
+                    .append("    stock_regeneration_multiplier: 1\n")
+                    .append("    stock_regeneration_rate: 0.05\n")
+                    .append("    next_update_time: ").append(Long.MAX_VALUE / 2).append('\n')
+                    .append("    last_activity: 0\n")
+                    .append("    price_history:\n")
+                    .append("      - 3700\n");
+        }
+        Files.writeString(new File(folder, "items.yml").toPath(), yaml);
+        return folder;
+    }
+
+    /**
+     * Fills a fresh storage array with full and partial stacks of two materials.
+     */
+    static ItemStack[] createContents(Material material, int stacks) {
+        ItemStack[] contents = new ItemStack[PLAYER_INVENTORY_SIZE];
+        for (int i = 0; i < PLAYER_INVENTORY_SIZE; i++) {
+            if (i < stacks) {
+                contents[i] = new ItemStack(material, i % 4 == 3 ? 17 : 64);
+            } else if (i % 3 == 0) {
+                contents[i] = new ItemStack(Material.DIRT, 32);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Creates a player whose inventory is backed by {@code contents}; every other call returns a default.
+     */
+    static Player createPlayer(ItemStack[] contents) {
+        PlayerInventory inventory = (PlayerInventory) Proxy.newProxyInstance(
+                BenchmarkFixtures.class.getClassLoader(),
+                new Class<?>[]{PlayerInventory.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getContents", "getStorageContents" -> contents;
+                    case "getSize" -> contents.length;
+                    case "getItem" -> contents[(int) args[0]];
+                    case "setItem" -> {
+                        contents[(int) args[0]] = (ItemStack) args[1];
+                        yield null;
+                    }
+                    default -> defaultValue(method.getReturnType());
+                }
+        );
+
+        return (Player) Proxy.newProxyInstance(
+                BenchmarkFixtures.class.getClassLoader(),
+                new Class<?>[]{Player.class},
+                (proxy, method, args) -> "getInventory".equals(method.getName())
+                        ? inventory
+                        : defaultValue(method.getReturnType())
+        );
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
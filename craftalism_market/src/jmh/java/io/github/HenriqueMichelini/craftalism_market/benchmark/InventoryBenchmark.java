@@ -0,0 +1,52 @@
+package io.github.HenriqueMichelini.craftalism_market.benchmark;
+
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryHandler;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inventory scans used by sell transactions, against a 36-slot stub inventory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InventoryBenchmark {
+
+    @State(Scope.Thread)
+    public static class FilledInventory {
+        @Param({"1", "9", "36"})
+        public int stacks;
+
+        Player player;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            player = BenchmarkFixtures.createPlayer(BenchmarkFixtures.createContents(Material.COBBLESTONE, stacks));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RefilledInventory {
+        @Param({"64", "576", "2304"})
+        public int removeAmount;
+
+        Player player;
+
+        @Setup(Level.Invocation)
+        public void refill() {
+            player = BenchmarkFixtures.createPlayer(BenchmarkFixtures.createContents(Material.COBBLESTONE, 36));
+        }
+    }
+
+    @Benchmark
+    public int countItems(FilledInventory state) {
+        return InventoryHandler.countItems(state.player, Material.COBBLESTONE);
+    }
+
+    @Benchmark
+    public boolean removeItemFromPlayer(RefilledInventory state) {
+        return InventoryHandler.removeItemFromPlayer(state.player, Material.COBBLESTONE, state.removeAmount);
+    }
+}
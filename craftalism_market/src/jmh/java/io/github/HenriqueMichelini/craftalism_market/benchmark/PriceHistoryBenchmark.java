@@ -0,0 +1,35 @@
+package io.github.HenriqueMichelini.craftalism_market.benchmark;
+
+import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one trade price in an item's history.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceHistoryBenchmark {
+    private MarketMath marketMath;
+    private MarketItem item;
+    private long price;
+
+    @Setup
+    public void setup() {
+        marketMath = new MarketMath();
+        item = BenchmarkFixtures.createItem(Material.COBBLESTONE);
+        for (int i = 0; i < 10; i++) {
+            marketMath.updatePriceHistory(item, 3700L + i);
+        }
+    }
+
+    @Benchmark
+    public MarketItem updatePriceHistory() {
+        marketMath.updatePriceHistory(item, 3700L + (price++ & 1023));
+        return item;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.HenriqueMichelini.craftalism_market.benchmark;
+
+import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote cost across the TradeGUI amount tiers; these run on every trade button render.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PricingBenchmark {
+    @Param({"1", "8", "32", "64", "576", "2304"})
+    public int amount;
+
+    private MarketMath marketMath;
+    private MarketItem item;
+
+    @Setup
+    public void setup() {
+        marketMath = new MarketMath();
+        item = BenchmarkFixtures.createItem(Material.COBBLESTONE);
+    }
+
+    @Benchmark
+    public long totalBuyPrice() {
+        return marketMath.getTotalPriceOfItem(item, amount, true);
+    }
+
+    @Benchmark
+    public long totalSellPrice() {
+        return marketMath.getTotalPriceOfItem(item, amount, false);
+    }
+
+    @Benchmark
+    public long lastBuyPrice() {
+        return marketMath.getLastPriceOfItem(item, amount, true);
+    }
+
+    @Benchmark
+    public long lastSellPrice() {
+        return marketMath.getLastPriceOfItem(item, amount, false);
+    }
+}
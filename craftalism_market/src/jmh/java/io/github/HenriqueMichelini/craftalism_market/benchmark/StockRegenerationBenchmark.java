@@ -0,0 +1,54 @@
+package io.github.HenriqueMichelini.craftalism_market.benchmark;
+
+import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * One regeneration sweep over a catalog where every active item is due.
+ * Measured as single shots because a sweep reschedules every item it touches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class StockRegenerationBenchmark {
+    private static final long SWEEP_TIME = Long.MAX_VALUE / 2;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int itemCount;
+
+    private ConfigManager configManager;
+    private StockHandler stockHandler;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() throws IOException {
+        // The per-item INFO lines need a live MoneyFormat; the sweep is measured without them
+        Logger.getLogger(StockHandler.class.getName()).setLevel(java.util.logging.Level.WARNING);
+        File dataFolder = BenchmarkFixtures.createDataFolder(itemCount);
+        configManager = new ConfigManager(dataFolder);
+    }
+
+    @Setup(Level.Invocation)
+    public void scheduleAllItems() {
+        for (MarketItem item : configManager.getItems().values()) {
+            item.setCurrentStock(1000);
+            item.setCurrentPrice(3700L);
+            item.setNextUpdateTime(SWEEP_TIME);
+        }
+        stockHandler = new StockHandler(configManager, null);
+    }
+
+    @Benchmark
+    public StockHandler processAllActiveItems() {
+        stockHandler.processAllActiveItems(SWEEP_TIME);
+        return stockHandler;
+    }
+}
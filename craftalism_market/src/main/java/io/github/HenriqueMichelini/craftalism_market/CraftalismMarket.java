@@ -5,9 +5,17 @@ import io.github.HenriqueMichelini.craftalism_economy.economy.managers.EconomyMa
 import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.command.MarketCommand;
 import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
+import io.github.HenriqueMichelini.craftalism_market.core.OrderBatcher;
+import io.github.HenriqueMichelini.craftalism_market.core.SettlementPipeline;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionHandler;
+import io.github.HenriqueMichelini.craftalism_market.events.GameEvents;
 import io.github.HenriqueMichelini.craftalism_market.gui.manager.GuiManager;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryCountCache;
 import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.orders.OrderBookManager;
+import io.github.HenriqueMichelini.craftalism_market.stock.RegenerationMode;
 import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
+import io.github.HenriqueMichelini.craftalism_market.task.AsyncStockUpdateTask;
 import io.github.HenriqueMichelini.craftalism_market.task.StockUpdateTask;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -23,6 +31,12 @@ public class CraftalismMarket extends JavaPlugin {
     private GuiManager guiManager;
     private StockHandler stockHandler;
     private MoneyFormat moneyFormat;
+    private AsyncStockUpdateTask asyncStockUpdateTask;
+    private SettlementPipeline settlementPipeline;
+    private OrderBatcher orderBatcher;
+    private OrderBookManager orderBookManager;
+    private TransactionHandler transactionHandler;
+    private final InventoryCountCache inventoryCountCache = new InventoryCountCache();
 
     @Override
     public void onEnable() {
@@ -35,9 +49,11 @@ public class CraftalismMarket extends JavaPlugin {
         }
 
         configManager = new ConfigManager(getDataFolder());
+        initializeSettlementPipeline();
         initializeStockHandler();
         initializeComponents();
         registerCommands();
+        registerEvents();
         initializeAutoSave();
 
         getLogger().info("Craftalism Market has been enabled!");
@@ -45,15 +61,21 @@ public class CraftalismMarket extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        configManager.saveItems();
+        if (asyncStockUpdateTask != null) asyncStockUpdateTask.shutdown();
+        if (orderBatcher != null) orderBatcher.clearAll();
+        if (settlementPipeline != null) settlementPipeline.shutdown();
+        stockHandler.settleAll();
+        orderBookManager.save();
+        configManager.shutdown();
         getLogger().info("Market data saved successfully!");
         instance = null;
     }
 
     private void initializeAutoSave() {
         Bukkit.getScheduler().runTaskTimer(this, () -> {
+            stockHandler.settleAll();
             configManager.saveItems();
-            getLogger().fine("Auto-saved market data");
+            getLogger().fine("Queued market data autosave");
         }, 0L, 300 * 20L);
     }
 
@@ -68,22 +90,83 @@ public class CraftalismMarket extends JavaPlugin {
         return true;
     }
 
+    private void initializeSettlementPipeline() {
+        if (!configManager.isAsyncEconomy()) return;
+        settlementPipeline = new SettlementPipeline(task -> Bukkit.getScheduler().runTask(this, task));
+        getLogger().info("Economy calls for trades are settled off the main thread");
+    }
+
     private void initializeComponents() {
         MarketMath marketMath = new MarketMath();
+        initializeOrderBatcher(marketMath);
+        orderBookManager = new OrderBookManager(
+                getDataFolder(),
+                moneyFormat,
+                economyManager,
+                marketMath,
+                configManager,
+                stockHandler,
+                settlementPipeline,
+                inventoryCountCache,
+                task -> Bukkit.getScheduler().runTask(this, task)
+        );
+        transactionHandler = new TransactionHandler(
+                economyManager,
+                configManager,
+                marketMath,
+                stockHandler,
+                settlementPipeline,
+                orderBatcher,
+                inventoryCountCache,
+                orderBookManager::deliver,
+                Bukkit::getPlayer
+        );
         guiManager = new GuiManager(configManager, this, marketMath, stockHandler, moneyFormat);
     }
 
+    private void initializeOrderBatcher(MarketMath marketMath) {
+        if (!configManager.isBatchClearing()) return;
+        orderBatcher = new OrderBatcher(
+                economyManager,
+                marketMath,
+                configManager,
+                stockHandler,
+                inventoryCountCache,
+                clearing -> Bukkit.getScheduler().runTask(this, clearing)
+        );
+        getLogger().info("Trades are batched and cleared once per tick");
+    }
+
     private void initializeStockHandler() {
-        this.stockHandler = new StockHandler(configManager, moneyFormat);
+        this.stockHandler = new StockHandler(
+                configManager,
+                moneyFormat,
+                flush -> Bukkit.getScheduler().runTask(this, flush)
+        );
+        if (stockHandler.getRegenerationMode() == RegenerationMode.LAZY) {
+            getLogger().info("Lazy stock regeneration enabled; items are settled when traded, viewed or saved");
+            return;
+        }
         long checkIntervalTicks = 20L * 5;
+        if (stockHandler.getRegenerationMode() == RegenerationMode.ASYNC) {
+            asyncStockUpdateTask = new AsyncStockUpdateTask(this, stockHandler);
+            asyncStockUpdateTask.runTaskTimer(this, 0L, checkIntervalTicks);
+            return;
+        }
         new StockUpdateTask(stockHandler).runTaskTimer(this, 0L, checkIntervalTicks);
     }
 
     private void registerCommands() {
-        MarketCommand marketCommand = new MarketCommand(guiManager);
+        MarketCommand marketCommand = new MarketCommand(guiManager, configManager, orderBookManager, transactionHandler,
+                moneyFormat, task -> Bukkit.getScheduler().runTask(this, task));
         Objects.requireNonNull(getCommand("market")).setExecutor(marketCommand);
     }
 
+    private void registerEvents() {
+        Bukkit.getPluginManager().registerEvents(new GameEvents(orderBookManager), this);
+        Bukkit.getPluginManager().registerEvents(inventoryCountCache, this);
+    }
+
     //region Getters
     public static CraftalismMarket getInstance() {
         return instance;
@@ -100,5 +183,31 @@ public class CraftalismMarket extends JavaPlugin {
     public StockHandler getStockHandler() {
         return stockHandler;
     }
+
+    /**
+     * @return the async economy pipeline, or null when economy calls are made inline
+     */
+    public SettlementPipeline getSettlementPipeline() {
+        return settlementPipeline;
+    }
+
+    /**
+     * @return the per-tick order batcher, or null when each order is filled immediately
+     */
+    public OrderBatcher getOrderBatcher() {
+        return orderBatcher;
+    }
+
+    public InventoryCountCache getInventoryCountCache() {
+        return inventoryCountCache;
+    }
+
+    public TransactionHandler getTransactionHandler() {
+        return transactionHandler;
+    }
+
+    public OrderBookManager getOrderBookManager() {
+        return orderBookManager;
+    }
     //endregion
 }
\ No newline at end of file
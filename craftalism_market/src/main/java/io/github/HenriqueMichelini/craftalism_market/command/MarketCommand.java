@@ -1,16 +1,67 @@
 package io.github.HenriqueMichelini.craftalism_market.command;
+import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
+import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionHandler;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionResult;
 import io.github.HenriqueMichelini.craftalism_market.gui.manager.GuiManager;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.orders.LimitOrder;
+import io.github.HenriqueMichelini.craftalism_market.orders.OrderBookManager;
+import io.github.HenriqueMichelini.craftalism_market.orders.OrderSide;
+import io.github.HenriqueMichelini.craftalism_market.storage.JournalRecord;
+import io.github.HenriqueMichelini.craftalism_market.storage.TradeRecord;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
 public class MarketCommand implements CommandExecutor {
+    private static final int HISTORY_LIMIT = 10;
+    private static final long SELL_ALL_CONFIRM_MILLIS = 30_000;
+    private static final DateTimeFormatter HISTORY_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+    private static final String ORDER_USAGE = "§cUsage: /market order <buy|sell> <item> <amount> <price> | /market order cancel <id> | /market order list";
+
     private final GuiManager guiManager;
+    private final ConfigManager configManager;
+    private final OrderBookManager orderBookManager;
+    private final TransactionHandler transactionHandler;
+    private final MoneyFormat moneyFormat;
+    private final Executor mainThread;
+    // When each player's last sell-all quote stops being confirmable
+    private final Map<UUID, Long> sellAllQuotes = new HashMap<>();
 
-    public MarketCommand(GuiManager guiManager) {
+    /**
+     * @param mainThread schedules a task on the server thread, for replies to storage lookups
+     */
+    public MarketCommand(
+            GuiManager guiManager,
+            ConfigManager configManager,
+            OrderBookManager orderBookManager,
+            TransactionHandler transactionHandler,
+            MoneyFormat moneyFormat,
+            Executor mainThread
+    ) {
         this.guiManager = guiManager;
+        this.configManager = configManager;
+        this.orderBookManager = orderBookManager;
+        this.transactionHandler = transactionHandler;
+        this.moneyFormat = moneyFormat;
+        this.mainThread = mainThread;
     }
 
     @Override
@@ -20,7 +71,154 @@ public class MarketCommand implements CommandExecutor {
             return true;
         }
 
+        if (args.length > 0 && args[0].equalsIgnoreCase("order")) {
+            handleOrder(player, args);
+            return true;
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("sellall")) {
+            handleSellAll(player, args);
+            return true;
+        }
+
+        if (args.length > 0 && args[0].equalsIgnoreCase("history")) {
+            configManager.findTrades(player.getUniqueId(), HISTORY_LIMIT)
+                    .thenAcceptAsync(trades -> reportHistory(player, trades), mainThread);
+            return true;
+        }
+
         guiManager.openMarket(player);
         return true;
     }
-}
\ No newline at end of file
+
+    private void handleOrder(Player player, String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "";
+        switch (action) {
+            case "buy", "sell" -> placeOrder(player, action.equals("buy") ? OrderSide.BUY : OrderSide.SELL, args);
+            case "cancel" -> cancelOrder(player, args);
+            case "list" -> listOrders(player);
+            default -> player.sendMessage(ORDER_USAGE);
+        }
+    }
+
+    /**
+     * {@code /market sellall} only quotes the sale; {@code /market sellall confirm} sells, and
+     * only after a recent quote, so nothing is sold by a single mistyped command.
+     */
+    private void handleSellAll(Player player, String[] args) {
+        UUID playerId = player.getUniqueId();
+        if (args.length > 1 && args[1].equalsIgnoreCase("confirm")) {
+            Long expiresAt = sellAllQuotes.remove(playerId);
+            if (expiresAt == null || expiresAt < System.currentTimeMillis()) {
+                player.sendMessage("§cRun /market sellall first to see what you would get.");
+                return;
+            }
+            transactionHandler.performSellAllTransaction(playerId)
+                    .thenAccept(result -> reportSellAll(player, result));
+            return;
+        }
+
+        TransactionResult quote = transactionHandler.quoteSellAll(playerId);
+        if (!quote.isSuccess()) {
+            sellAllQuotes.remove(playerId);
+            reportSellAll(player, quote);
+            return;
+        }
+        sellAllQuotes.put(playerId, System.currentTimeMillis() + SELL_ALL_CONFIRM_MILLIS);
+        player.sendMessage("§eSelling %d items would pay %s after %s tax. Named, enchanted and damaged items are kept.".formatted(
+                quote.amount(), moneyFormat.formatPrice(quote.totalPrice()), moneyFormat.formatPrice(quote.tax())));
+        player.sendMessage("§eType /market sellall confirm within %d seconds to sell.".formatted(SELL_ALL_CONFIRM_MILLIS / 1000));
+    }
+
+    private void placeOrder(Player player, OrderSide side, String[] args) {
+        if (args.length != 5) {
+            player.sendMessage(ORDER_USAGE);
+            return;
+        }
+
+        MarketItem item = configManager.getItems().get(args[2].toLowerCase(Locale.ROOT));
+        if (item == null) {
+            player.sendMessage("§cItem not found!");
+            return;
+        }
+
+        int amount;
+        long limitPrice;
+        try {
+            amount = Integer.parseInt(args[3]);
+            limitPrice = parsePrice(args[4]);
+        } catch (NumberFormatException | ArithmeticException e) {
+            player.sendMessage("§cAmount and price must be numbers");
+            return;
+        }
+        orderBookManager.place(player, item, side, amount, limitPrice);
+    }
+
+    private void cancelOrder(Player player, String[] args) {
+        if (args.length != 3) {
+            player.sendMessage(ORDER_USAGE);
+            return;
+        }
+        try {
+            orderBookManager.cancel(player, Long.parseLong(args[2].replace("#", "")));
+        } catch (NumberFormatException e) {
+            player.sendMessage("§cOrder id must be a number");
+        }
+    }
+
+    private void listOrders(Player player) {
+        List<LimitOrder> orders = orderBookManager.getOrders(player.getUniqueId());
+        if (orders.isEmpty()) {
+            player.sendMessage("§7You have no open orders.");
+            return;
+        }
+        for (LimitOrder order : orders) {
+            player.sendMessage("§e#%d §f%s %d %s at %s".formatted(
+                    order.id(),
+                    order.side().name().toLowerCase(Locale.ROOT),
+                    order.remaining(),
+                    order.material().name().toLowerCase(Locale.ROOT),
+                    moneyFormat.formatPrice(order.limitPrice())
+            ));
+        }
+    }
+
+    private void reportHistory(Player player, Optional<List<TradeRecord>> trades) {
+        if (trades.isEmpty()) {
+            player.sendMessage("§cTrade history is not available with this server's storage.");
+            return;
+        }
+        if (trades.get().isEmpty()) {
+            player.sendMessage("§7You have no recorded trades.");
+            return;
+        }
+        for (TradeRecord trade : trades.get()) {
+            player.sendMessage("§e%s §f%s %d %s for %s".formatted(
+                    HISTORY_TIME.format(Instant.ofEpochMilli(trade.timestamp())),
+                    trade.side() == JournalRecord.Type.BUY ? "bought" : "sold",
+                    trade.amount(),
+                    trade.material().toLowerCase(Locale.ROOT),
+                    moneyFormat.formatPrice(trade.totalPrice())
+            ));
+        }
+    }
+
+    private void reportSellAll(Player player, TransactionResult result) {
+        switch (result.status()) {
+            case SUCCESS -> player.sendMessage("§aSold %d items for %s. Tax of %s deducted.".formatted(
+                    result.amount(), moneyFormat.formatPrice(result.totalPrice()), moneyFormat.formatPrice(result.tax())));
+            case NOTHING_TO_SELL -> player.sendMessage("§cYou have nothing the market buys.");
+            case PAYMENT_FAILED -> player.sendMessage("§cPayment failed; your items were returned");
+            default -> player.sendMessage("§cFailed to complete sale!");
+        }
+    }
+
+    /**
+     * Parses a decimal price into the scaled fixed-point form prices are kept in.
+     */
+    private static long parsePrice(String value) {
+        return new BigDecimal(value)
+                .multiply(BigDecimal.valueOf(MoneyFormat.DECIMAL_SCALE))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
@@ -3,28 +3,55 @@ package io.github.HenriqueMichelini.craftalism_market.config;
 import io.github.HenriqueMichelini.craftalism_market.config.loader.DataParser;
 import io.github.HenriqueMichelini.craftalism_market.config.loader.FileLoader;
 import io.github.HenriqueMichelini.craftalism_market.config.validation.SchemaValidator;
+import io.github.HenriqueMichelini.craftalism_market.history.CandleStore;
 import io.github.HenriqueMichelini.craftalism_market.models.Category;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketIndex;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+import io.github.HenriqueMichelini.craftalism_market.stock.RegenerationMode;
+import io.github.HenriqueMichelini.craftalism_market.storage.*;
+import org.bukkit.Material;
 import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ConfigManager {
+    private final File dataFolder;
     private final FileLoader fileLoader;
     private final DataParser dataParser;
+    private final CandleStore candleStore;
+    private final TransactionJournal journal;
+    private final ExecutorService storageExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftalismMarket-Storage");
+        thread.setDaemon(true);
+        return thread;
+    });
     private YamlConfiguration mainConfig;
+    private MarketStore store;
+    private PendingItemWrites itemWrites;
+
+    private final List<TradeRecord> pendingTrades = new ArrayList<>();
+    private boolean tradeFlushScheduled;
+    private volatile boolean retryPending;
 
     private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
     private static final int DEFAULT_UPDATE_INTERVAL = 10;
     private static final int MIN_UPDATE_INTERVAL = 1;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
 
     public ConfigManager(File dataFolder) {
+        this.dataFolder = dataFolder;
         this.fileLoader = new FileLoader(dataFolder);
         this.dataParser = new DataParser(fileLoader);
+        this.candleStore = new CandleStore(new File(dataFolder, "candles.dat"));
+        this.journal = new TransactionJournal(new File(dataFolder, "journal.bin"));
         reload();
     }
 
@@ -35,9 +62,12 @@ public class ConfigManager {
     private double stockIncreasePercentage = 0.05; // Default value
 
     public void reload() {
-        fileLoader.loadFiles();
-
+        fileLoader.loadSettings();
         this.mainConfig = fileLoader.getMainConfig();
+        if (store == null) {
+            store = createStore();
+            itemWrites = new PendingItemWrites(store);
+        }
 
         this.stockIncreasePercentage = mainConfig.getDouble(
                 "stockIncreasePercentage",
@@ -45,51 +75,158 @@ public class ConfigManager {
         );
 
         SchemaValidator.validateCategories(fileLoader.getCategoriesConfig());
-        SchemaValidator.validateItems(fileLoader.getItemsConfig());
+        MarketStore.Loaded stored = store.load();
+        long snapshotSequence;
+        if (stored != null) {
+            dataParser.parseData(stored.items());
+            snapshotSequence = stored.journalSequence();
+        } else {
+            fileLoader.loadItems();
+            SchemaValidator.validateItems(fileLoader.getItemsConfig());
+            dataParser.parseData();
+            snapshotSequence = fileLoader.getItemsConfig().getLong(YamlMarketStore.JOURNAL_SEQUENCE_PATH, 0L);
+        }
 
-        dataParser.parseData();
+        candleStore.load(dataParser.getItems());
+        replayJournal(snapshotSequence);
+
+        // Hand the store every item once, so it starts from the full market and a seeded store is filled
+        Map<String, MarketItemSnapshot> allItems = new HashMap<>();
+        dataParser.getItems().forEach((key, item) -> {
+            allItems.put(key, item.snapshot());
+            item.markClean();
+        });
+        Map<String, byte[]> candles = candleStore.snapshot();
+        long journalSequence = journal.getLastSequence();
+        storageExecutor.execute(() -> writeItems(allItems, candles, journalSequence));
     }
 
-    public double getStockIncreasePercentage() {
-        return stockIncreasePercentage;
+    private MarketStore createStore() {
+        StorageType type = StorageType.fromConfig(mainConfig.getString("storage", "yaml"));
+        if (type == StorageType.SQLITE) {
+            if (SqliteMarketStore.isDriverAvailable()) {
+                return new SqliteMarketStore(new File(dataFolder, "market.db"));
+            }
+            LOGGER.severe("SQLite storage requested but no SQLite JDBC driver is available; using yaml");
+        }
+        return new YamlMarketStore(fileLoader.getItemsFile(), new File(dataFolder, "market.snapshot"));
     }
 
-    public void saveItems() {
-        File itemsFile = new File(fileLoader.getConfigFolder(), "items.yml");
-        YamlConfiguration itemsConfig = YamlConfiguration.loadConfiguration(itemsFile);
+    /**
+     * Re-applies the trades and regenerations journaled after the loaded snapshot was taken.
+     */
+    private void replayJournal(long snapshotSequence) {
+        MarketIndex index = dataParser.getIndex();
+        int replayed = journal.replay(snapshotSequence, record -> {
+            Material material = Material.getMaterial(record.material());
+            MarketItem item = material == null ? null : index.get(material);
+            if (item != null) record.applyTo(item);
+        });
+        if (replayed > 0) {
+            LOGGER.info(() -> String.format("Recovered %d journaled market events", replayed));
+        }
+    }
 
-        // Clear existing items section
-        itemsConfig.set("items", null);
+    public TransactionJournal getJournal() {
+        return journal;
+    }
 
-        // Serialize all MarketItems
+    public double getStockIncreasePercentage() {
+        return stockIncreasePercentage;
+    }
+
+    /**
+     * Snapshots the items changed since the last save and writes them on the storage thread.
+     * The calling (main) thread only copies the changed items' fields; YAML serialization and
+     * the temp-file-plus-rename write happen in the background. Items of a failed write are
+     * written again with the next batch. Nothing is queued when no item changed and the
+     * previous write succeeded.
+     */
+    public CompletableFuture<Void> saveItems() {
+        Map<String, MarketItemSnapshot> changed = new HashMap<>();
         for (Map.Entry<String, MarketItem> entry : dataParser.getItems().entrySet()) {
-            String key = entry.getKey();
             MarketItem item = entry.getValue();
+            if (!item.isDirty()) continue;
+
+            changed.put(entry.getKey(), item.snapshot());
+            item.markClean();
+            candleStore.capture(entry.getKey(), item.getCandles());
+        }
 
-            String path = "items." + key + ".";
-            itemsConfig.set(path + "material", item.getMaterial().name());
-            itemsConfig.set(path + "category", item.getCategory());
-            itemsConfig.set(path + "slot", item.getSlot());
-            itemsConfig.set(path + "base_price", item.getBasePrice());
-            itemsConfig.set(path + "current_price", item.getCurrentPrice());
-            itemsConfig.set(path + "price_variation", item.getPriceVariationPerOperation());
-            itemsConfig.set(path + "tax_rate", item.getTaxRate());
-            itemsConfig.set(path + "base_stock", item.getBaseStock());
-            itemsConfig.set(path + "current_stock", item.getCurrentStock());
-            itemsConfig.set(path + "stock_regeneration_multiplier", item.getStockRegenerationMultiplier());
-            itemsConfig.set(path + "stock_regeneration_rate", item.getStockRegenerationRate());
-            itemsConfig.set(path + "next_update_time", item.getNextUpdateTime());
-            itemsConfig.set(path + "last_activity", item.getLastActivity());
-
-            List<Long> priceHistory = item.getPriceHistory();
-            itemsConfig.set(path + "price_history", priceHistory);
+        if (changed.isEmpty() && !retryPending) {
+            return CompletableFuture.completedFuture(null);
         }
 
+        Map<String, byte[]> candles = candleStore.snapshot();
+        long journalSequence = journal.getLastSequence();
+        return CompletableFuture.runAsync(() -> writeItems(changed, candles, journalSequence), storageExecutor);
+    }
+
+    /**
+     * Queues a completed trade for stores that keep trade history. Main thread only;
+     * trades that pile up while the storage thread is busy are written as one batch.
+     */
+    public void recordTrade(TradeRecord trade) {
+        synchronized (pendingTrades) {
+            pendingTrades.add(trade);
+            if (tradeFlushScheduled) return;
+            tradeFlushScheduled = true;
+        }
+        storageExecutor.execute(this::writeTrades);
+    }
+
+    /**
+     * Runs a write for another data file on the storage thread, after every market write already queued.
+     */
+    public CompletableFuture<Void> runOnStorageThread(Runnable task) {
+        return CompletableFuture.runAsync(task, storageExecutor);
+    }
+
+    /**
+     * Looks up a player's most recent trades on the storage thread, newest first.
+     * Completes empty when the configured store keeps no trade history.
+     */
+    public CompletableFuture<Optional<List<TradeRecord>>> findTrades(UUID playerId, int limit) {
+        return CompletableFuture.supplyAsync(() -> store.findTrades(playerId, limit), storageExecutor);
+    }
+
+    /**
+     * Queues a final save and blocks until every pending write, including the journal, has finished.
+     */
+    public void shutdown() {
+        saveItems();
+        storageExecutor.execute(store::close);
+        storageExecutor.shutdown();
         try {
-            itemsConfig.save(itemsFile);
-        } catch (IOException e) {
-            LOGGER.severe("Failed to save items config: " + e.getMessage());
+            if (!storageExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.severe("Timed out waiting for market data to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.severe("Interrupted while waiting for market data to be written");
         }
+        journal.close();
+    }
+
+    // Storage thread only
+    private void writeItems(Map<String, MarketItemSnapshot> changed, Map<String, byte[]> candles, long journalSequence) {
+        boolean saved = itemWrites.write(changed, journalSequence);
+        // The journal is only cut once every item change it covers is safely stored
+        if (saved) journal.compact(journalSequence);
+
+        saved &= candleStore.write(candles);
+        retryPending = !saved;
+    }
+
+    // Storage thread only
+    private void writeTrades() {
+        List<TradeRecord> batch;
+        synchronized (pendingTrades) {
+            batch = new ArrayList<>(pendingTrades);
+            pendingTrades.clear();
+            tradeFlushScheduled = false;
+        }
+        if (!batch.isEmpty()) store.recordTrades(batch);
     }
 
     public int getStockUpdateInterval() {
@@ -125,6 +262,29 @@ public class ConfigManager {
         }
     }
 
+    public boolean isAsyncEconomy() {
+        return mainConfig.getBoolean("async-economy", false);
+    }
+
+    public boolean isBatchClearing() {
+        return mainConfig.getBoolean("batch-clearing", false);
+    }
+
+    public int getMaxOpenOrders() {
+        return Math.max(0, mainConfig.getInt("max-open-orders", 10));
+    }
+
+    /**
+     * Minimum ticks between two refreshes of an open market GUI; 0 refreshes on every change.
+     */
+    public int getGuiRefreshIntervalTicks() {
+        return Math.max(0, mainConfig.getInt("gui-refresh-interval-ticks", 10));
+    }
+
+    public RegenerationMode getRegenerationMode() {
+        return RegenerationMode.fromConfig(mainConfig.getString("stock-regeneration-mode", "sync"));
+    }
+
     public double getMaxStockOverflow() {
         return mainConfig.getDouble("max-stock-overflow", 2.0);
     }
@@ -141,4 +301,11 @@ public class ConfigManager {
     public Map<String, MarketItem> getItems() {
         return dataParser.getItems();
     }
+
+    /**
+     * Id, material and per-category lookups over {@link #getItems()}.
+     */
+    public MarketIndex getIndex() {
+        return dataParser.getIndex();
+    }
 }
\ No newline at end of file
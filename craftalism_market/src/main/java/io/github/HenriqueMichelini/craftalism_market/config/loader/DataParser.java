@@ -1,16 +1,21 @@
 package io.github.HenriqueMichelini.craftalism_market.config.loader;
 
 import io.github.HenriqueMichelini.craftalism_market.models.Category;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketIndex;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.PriceHistory;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.logging.Logger;
 
 public class DataParser {
+    private static final Logger LOGGER = Logger.getLogger(DataParser.class.getName());
+
     private final FileLoader fileLoader;
     private final Map<String, Category> categories = new HashMap<>();
     private final Map<String, MarketItem> items = new HashMap<>();
+    private MarketIndex index = MarketIndex.build(Map.of());
 
     public DataParser(FileLoader fileLoader) {
         this.fileLoader = fileLoader;
@@ -19,6 +24,16 @@ public class DataParser {
     public void parseData() {
         parseCategories();
         parseItems();
+        index = MarketIndex.build(items);
+    }
+
+    /**
+     * Parses categories from YAML but takes the items already loaded from the binary snapshot.
+     */
+    public void parseData(Map<String, MarketItem> snapshotItems) {
+        parseCategories();
+        items.putAll(snapshotItems);
+        index = MarketIndex.build(items);
     }
 
     private void parseCategories() {
@@ -50,9 +65,16 @@ public class DataParser {
             ConfigurationSection itemSection = section.getConfigurationSection(key);
             assert itemSection != null;
 
+            String materialName = Objects.requireNonNull(itemSection.getString("material"));
+            Material material = Material.matchMaterial(materialName);
+            if (material == null) {
+                LOGGER.warning("Skipping item " + key + " with unknown material: " + materialName);
+                continue;
+            }
+
             MarketItem item = new MarketItem(
                     itemSection.getString("category"),
-                    Material.matchMaterial(Objects.requireNonNull(itemSection.getString("material"))),
+                    material,
                     itemSection.getInt("slot"),
                     itemSection.getLong("base_price"),
                     itemSection.getLong("current_price"),
@@ -72,10 +94,11 @@ public class DataParser {
         }
     }
 
-    private List<Long> parsePriceHistory(ConfigurationSection section) {
-        return section.getDoubleList("price_history").stream()
-                .map(Math::round)
-                .collect(Collectors.toList());
+    private PriceHistory parsePriceHistory(ConfigurationSection section) {
+        long[] prices = section.getDoubleList("price_history").stream()
+                .mapToLong(Math::round)
+                .toArray();
+        return PriceHistory.of(PriceHistory.DEFAULT_CAPACITY, prices);
     }
 
     public Map<String, Category> getCategories() {
@@ -85,4 +108,8 @@ public class DataParser {
     public Map<String, MarketItem> getItems() {
         return Collections.unmodifiableMap(items);
     }
+
+    public MarketIndex getIndex() {
+        return index;
+    }
 }
\ No newline at end of file
@@ -24,9 +24,20 @@ public class FileLoader {
     }
 
     public void loadFiles() {
+        loadSettings();
+        loadItems();
+    }
+
+    /**
+     * Loads everything except items.yml, for when items come from the market store.
+     */
+    public void loadSettings() {
         loadMainConfig();
         loadCategories();
-        loadItems();
+    }
+
+    public File getItemsFile() {
+        return new File(configFolder, "items.yml");
     }
 
     private void loadMainConfig() {
@@ -49,6 +60,25 @@ public class FileLoader {
         
         # Number of decimal places for prices
         price-decimal-places: 2
+        
+        # How stock regenerates: sync (periodic sweep), async (sweep computed off the main thread)
+        # or lazy (settled when traded, viewed or saved)
+        stock-regeneration-mode: sync
+        
+        # Where market state is kept: yaml (items.yml) or sqlite (market.db, also records trades)
+        storage: yaml
+        
+        # Settle trade and limit order payments on a worker thread (enable if the economy is backed by a database)
+        async-economy: false
+        
+        # Collect each tick's trades per item and fill them together at one netted price
+        batch-clearing: false
+        
+        # Standing limit orders a player may have open at once (/market order)
+        max-open-orders: 10
+        
+        # Minimum ticks between refreshes of an open market screen while prices move (0 = every change)
+        gui-refresh-interval-ticks: 10
        
         """;
 
@@ -71,8 +101,8 @@ public class FileLoader {
         }
     }
 
-    private void loadItems() {
-        File file = new File(configFolder, "items.yml");
+    public void loadItems() {
+        File file = getItemsFile();
         try {
             if (!file.exists()) createDefaultItems(file);
             itemsConfig = YamlConfiguration.loadConfiguration(file);
@@ -0,0 +1,13 @@
+package io.github.HenriqueMichelini.craftalism_market.core;
+
+import org.bukkit.Material;
+
+import java.util.UUID;
+
+/**
+ * Hands items to a player now, or keeps them for the player's next join if they are offline.
+ */
+@FunctionalInterface
+public interface ItemDelivery {
+    void deliver(UUID owner, Material material, int amount);
+}
@@ -0,0 +1,309 @@
+package io.github.HenriqueMichelini.craftalism_market.core;
+
+import io.github.HenriqueMichelini.craftalism_economy.economy.managers.EconomyManager;
+import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionResult.Status;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryCountCache;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryHandler;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryPlan;
+import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
+import io.github.HenriqueMichelini.craftalism_market.storage.JournalRecord;
+import io.github.HenriqueMichelini.craftalism_market.storage.TradeRecord;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in batch clearing: orders placed during a tick are collected per item and cleared
+ * together on the next tick.
+ * <p>
+ * Buys are netted against sells, so only the imbalance moves the price, in one geometric
+ * step. Every order for the item fills at the same unit price, the average price along that
+ * step. Stock, price history, base stock and regeneration upgrades, the journal and GUI
+ * refreshes are then updated once per item instead of once per click.
+ */
+public class OrderBatcher {
+    private static final Logger LOGGER = Logger.getLogger(OrderBatcher.class.getName());
+
+    private final EconomyManager economyManager;
+    private final MarketMath marketMath;
+    private final ConfigManager configManager;
+    private final StockHandler stockHandler;
+    private final InventoryCountCache inventoryCounts;
+    private final Executor nextTick;
+
+    private final Map<MarketItem, List<Order>> books = new LinkedHashMap<>();
+
+    /**
+     * @param inventoryCounts owned counts shown on trade screens, invalidated for every inventory a clearing changes
+     * @param nextTick        schedules a task on the server thread for the next tick
+     */
+    public OrderBatcher(
+            EconomyManager      economyManager,
+            MarketMath          marketMath,
+            ConfigManager       configManager,
+            StockHandler        stockHandler,
+            InventoryCountCache inventoryCounts,
+            Executor            nextTick
+    )
+    {
+        this.economyManager  = economyManager;
+        this.marketMath      = marketMath;
+        this.configManager   = configManager;
+        this.stockHandler    = stockHandler;
+        this.inventoryCounts = inventoryCounts;
+        this.nextTick        = nextTick;
+    }
+
+    /**
+     * Queues an order for the next clearing. Main thread only.
+     *
+     * @return completes with the order's fill once it has been cleared
+     */
+    public CompletableFuture<TransactionResult> submit(Player player, MarketItem item, boolean isBuy, int amount) {
+        boolean clearingScheduled = !books.isEmpty();
+        Order order = new Order(player, isBuy, amount);
+        books.computeIfAbsent(item, key -> new ArrayList<>()).add(order);
+        if (!clearingScheduled) {
+            nextTick.execute(this::clearAll);
+        }
+        return order.result;
+    }
+
+    /**
+     * Clears every queued order. Main thread only.
+     */
+    public void clearAll() {
+        if (books.isEmpty()) return;
+
+        Map<MarketItem, List<Order>> batch = new LinkedHashMap<>(books);
+        books.clear();
+
+        List<MarketItem> traded = new ArrayList<>();
+        batch.forEach((item, orders) -> {
+            try {
+                if (clear(item, orders)) traded.add(item);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error clearing orders for item: " + item.getMaterial(), e);
+                orders.forEach(order -> order.result.complete(TransactionResult.failed(Status.ERROR, order.requested)));
+            }
+        });
+        stockHandler.notifyItemsUpdated(traded);
+    }
+
+    /**
+     * @return true if any order was filled
+     */
+    private boolean clear(MarketItem item, List<Order> orders) {
+        stockHandler.settle(item);
+
+        int sold = collectSells(item, orders);
+        int bought = collectBuys(item, orders, item.getCurrentStock() + sold);
+
+        long unitPrice = unitPrice(item, bought - sold);
+        if (PricingEngine.isSaturated(unitPrice)) {
+            undoAll(item, orders, Status.PRICE_TOO_HIGH);
+            return false;
+        }
+
+        // A failed payment shrinks the net demand, which can only lower the clearing price
+        int unpaid = chargeBuyers(item, orders, unitPrice);
+        if (unpaid > 0) {
+            bought -= unpaid;
+            long clearedPrice = unitPrice(item, bought - sold);
+            refundBuyers(orders, unitPrice - clearedPrice);
+            unitPrice = clearedPrice;
+        }
+
+        deliverToBuyers(item, orders);
+        paySellers(item, orders, unitPrice);
+        if (bought + sold == 0) return false;
+
+        applyClearing(item, bought, sold);
+        reportFills(item, orders);
+        return true;
+    }
+
+    private int collectSells(MarketItem item, List<Order> orders) {
+        int sold = 0;
+        for (Order order : orders) {
+            if (order.isBuy) continue;
+
+            // Unsold items are returned as plain stacks, so named or enchanted ones are never taken
+            InventoryPlan inventory = InventoryPlan.scan(order.player.getInventory());
+            int amount = inventory.planRemovePlain(item.getMaterial(), order.requested);
+            if (amount <= 0) {
+                reject(order, Status.NOTHING_TO_SELL);
+                continue;
+            }
+            inventory.apply();
+            inventoryCounts.invalidate(order.player, item.getMaterial());
+            order.filled = amount;
+            sold += amount;
+        }
+        return sold;
+    }
+
+    /**
+     * Sizes each buy to the stock left and to what fits. Nothing is handed over yet; a player's
+     * orders share one plan, so together they never claim more room than the inventory has.
+     */
+    private int collectBuys(MarketItem item, List<Order> orders, int supply) {
+        Map<UUID, InventoryPlan> plans = new HashMap<>();
+        int bought = 0;
+        for (Order order : orders) {
+            if (!order.isBuy) continue;
+
+            int amount = Math.min(order.requested, supply - bought);
+            if (amount <= 0) {
+                reject(order, Status.OUT_OF_STOCK);
+                continue;
+            }
+            InventoryPlan inventory = plans.computeIfAbsent(order.player.getUniqueId(),
+                    id -> InventoryPlan.scan(order.player.getInventory()));
+            amount = inventory.planAdd(item.getMaterial(), amount);
+            if (amount <= 0) {
+                reject(order, Status.INVENTORY_FULL);
+                continue;
+            }
+            order.filled = amount;
+            bought += amount;
+        }
+        return bought;
+    }
+
+    /**
+     * Average unit price along the geometric step for the net demand; the current price if balanced.
+     */
+    private long unitPrice(MarketItem item, int netDemand) {
+        if (netDemand == 0) return item.getCurrentPrice();
+        int steps = Math.abs(netDemand);
+        long total = marketMath.getTotalPriceOfItem(item, steps, netDemand > 0);
+        return PricingEngine.isSaturated(total) ? total : total / steps;
+    }
+
+    /**
+     * @return the amount sized for buyers whose payment failed; they receive nothing
+     */
+    private int chargeBuyers(MarketItem item, List<Order> orders, long unitPrice) {
+        int unpaid = 0;
+        for (Order order : orders) {
+            if (!order.isBuy || order.filled == 0) continue;
+
+            long cost = PricingEngine.mulDiv(unitPrice, order.filled, 1);
+            if (PricingEngine.isSaturated(cost) || !economyManager.withdraw(order.player.getUniqueId(), cost)) {
+                unpaid += order.filled;
+                reject(order, Status.PAYMENT_FAILED);
+                continue;
+            }
+            order.paid = cost;
+        }
+        return unpaid;
+    }
+
+    private void refundBuyers(List<Order> orders, long refundPerUnit) {
+        if (refundPerUnit <= 0) return;
+        for (Order order : orders) {
+            if (!order.isBuy || order.filled == 0) continue;
+            long refund = refundPerUnit * order.filled;
+            economyManager.deposit(order.player.getUniqueId(), refund);
+            order.paid -= refund;
+        }
+    }
+
+    /**
+     * Hands paid buyers their items. The clearing runs within one tick, so the room sized in
+     * {@link #collectBuys} is still there; anything that does not fit is dropped at the player.
+     */
+    private void deliverToBuyers(MarketItem item, List<Order> orders) {
+        for (Order order : orders) {
+            if (order.isBuy && order.filled > 0) {
+                InventoryHandler.addItemToPlayer(order.player, item.getMaterial(), order.filled);
+                inventoryCounts.invalidate(order.player, item.getMaterial());
+            }
+        }
+    }
+
+    private void paySellers(MarketItem item, List<Order> orders, long unitPrice) {
+        for (Order order : orders) {
+            if (order.isBuy || order.filled == 0) continue;
+
+            long gross = PricingEngine.mulDiv(unitPrice, order.filled, 1);
+            double tax = gross * item.getTaxRate();
+            order.paid = (long) (gross - tax);
+            order.tax = (long) tax;
+            economyManager.deposit(order.player.getUniqueId(), order.paid);
+        }
+    }
+
+    private void undoAll(MarketItem item, List<Order> orders, Status reason) {
+        for (Order order : orders) {
+            // Buys are only delivered once paid, so only sellers have anything to get back
+            if (order.filled > 0 && !order.isBuy) {
+                InventoryHandler.addItemToPlayer(order.player, item.getMaterial(), order.filled);
+                inventoryCounts.invalidate(order.player, item.getMaterial());
+            }
+            reject(order, reason);
+        }
+    }
+
+    /**
+     * Moves price and stock by the net imbalance and runs the per-item bookkeeping once.
+     */
+    private void applyClearing(MarketItem item, int bought, int sold) {
+        int netDemand = bought - sold;
+        int volume = bought + sold;
+
+        long lastPrice = marketMath.getLastPriceOfItem(item, Math.abs(netDemand), netDemand > 0);
+        item.setCurrentPrice(lastPrice);
+        item.setCurrentStock(item.getCurrentStock() - netDemand);
+        marketMath.updatePriceHistory(item, lastPrice, volume);
+        stockHandler.markItemForUpdate(item);
+
+        int increaseNumber = (int) (volume * configManager.getStockIncreasePercentage());
+        stockHandler.upgradeBaseStock(item, increaseNumber);
+        stockHandler.upgradeStockRegeneration(item, volume);
+        configManager.getJournal().append(
+                netDemand > 0 ? JournalRecord.Type.BUY : JournalRecord.Type.SELL, item, volume);
+    }
+
+    private void reportFills(MarketItem item, List<Order> orders) {
+        long now = System.currentTimeMillis();
+        for (Order order : orders) {
+            if (order.filled == 0) continue;
+
+            JournalRecord.Type side = order.isBuy ? JournalRecord.Type.BUY : JournalRecord.Type.SELL;
+            configManager.recordTrade(new TradeRecord(
+                    now, order.player.getUniqueId(), item.getMaterial().name(), side, order.filled, order.paid));
+            order.result.complete(TransactionResult.success(order.requested, order.filled, order.paid, order.tax));
+        }
+    }
+
+    private void reject(Order order, Status status) {
+        order.filled = 0;
+        order.result.complete(TransactionResult.failed(status, order.requested));
+    }
+
+    private static final class Order {
+        private final Player player;
+        private final boolean isBuy;
+        private final int requested;
+        private final CompletableFuture<TransactionResult> result = new CompletableFuture<>();
+        private int filled;
+        private long paid;
+        private long tax;
+
+        private Order(Player player, boolean isBuy, int requested) {
+            this.player = player;
+            this.isBuy = isBuy;
+            this.requested = requested;
+        }
+    }
+}
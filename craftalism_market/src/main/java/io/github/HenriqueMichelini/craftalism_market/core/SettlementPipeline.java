@@ -0,0 +1,114 @@
+package io.github.HenriqueMichelini.craftalism_market.core;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs economy calls off the main thread for trades.
+ * <p>
+ * A trade is validated and reserved on the main thread, the economy call is made on a worker,
+ * and the result is handed back to the main thread to commit or roll back. While a trade is in
+ * flight its units stay reserved against the item: purchases hold their stock, so concurrent
+ * orders cannot buy it twice, and both sides count towards the price new quotes start from,
+ * so a burst of trades walks along the curve instead of all getting the committed price.
+ */
+public class SettlementPipeline {
+    private static final Logger LOGGER = Logger.getLogger(SettlementPipeline.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftalismMarket-Economy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Executor mainThread;
+    private final Queue<Runnable> pendingCommits = new ConcurrentLinkedQueue<>();
+
+    // Main thread only
+    private final Map<MarketItem, Integer> reservedStock = new HashMap<>();
+    private final Map<MarketItem, Integer> reservedSales = new HashMap<>();
+
+    /**
+     * @param mainThread schedules a task on the server thread
+     */
+    public SettlementPipeline(Executor mainThread) {
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Runs the economy call on the worker. The returned future completes on the main thread,
+     * with {@code false} if the call threw.
+     */
+    public CompletableFuture<Boolean> settle(Supplier<Boolean> economyCall) {
+        return CompletableFuture.supplyAsync(economyCall, worker)
+                .handleAsync((succeeded, error) -> {
+                    if (error != null) {
+                        LOGGER.log(Level.SEVERE, "Economy settlement failed", error);
+                        return false;
+                    }
+                    return Boolean.TRUE.equals(succeeded);
+                }, this::commitOnMainThread);
+    }
+
+    public void reserve(MarketItem item, int amount, boolean isBuy) {
+        (isBuy ? reservedStock : reservedSales).merge(item, amount, Integer::sum);
+    }
+
+    /**
+     * Drops a reservation, whether its trade committed or rolled back. A committed trade
+     * must move the item in the same main-thread step, so quotes never count it twice.
+     */
+    public void release(MarketItem item, int amount, boolean isBuy) {
+        (isBuy ? reservedStock : reservedSales)
+                .computeIfPresent(item, (key, reserved) -> reserved > amount ? reserved - amount : null);
+    }
+
+    /**
+     * @return the stock held by purchases that have not settled yet
+     */
+    public int getReservedStock(MarketItem item) {
+        return reservedStock.getOrDefault(item, 0);
+    }
+
+    /**
+     * @return the units sold by sales that have not settled yet
+     */
+    public int getReservedSales(MarketItem item) {
+        return reservedSales.getOrDefault(item, 0);
+    }
+
+    /**
+     * Waits for in-flight economy calls, then commits their results on the calling (main)
+     * thread, since the scheduler no longer runs tasks once the plugin is disabling.
+     */
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.severe("Timed out waiting for economy settlements to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainCommits();
+    }
+
+    private void commitOnMainThread(Runnable commit) {
+        pendingCommits.add(commit);
+        mainThread.execute(this::drainCommits);
+    }
+
+    private void drainCommits() {
+        Runnable commit;
+        while ((commit = pendingCommits.poll()) != null) {
+            commit.run();
+        }
+    }
+}
@@ -1,185 +1,386 @@
 package io.github.HenriqueMichelini.craftalism_market.core;
 import io.github.HenriqueMichelini.craftalism_economy.economy.managers.EconomyManager;
-import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
-import io.github.HenriqueMichelini.craftalism_market.logic.InventoryHandler;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionResult.Status;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryCountCache;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryPlan;
 import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketIndex;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
 import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
+import io.github.HenriqueMichelini.craftalism_market.storage.JournalRecord;
+import io.github.HenriqueMichelini.craftalism_market.storage.TradeRecord;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 
-import java.util.UUID;
-
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Instant trades against the market curve, shared by every caller.
+ * <p>
+ * The service holds no per-trade state, so one instance serves every player; requests and
+ * results are plain records and nothing is sent to chat. Trades still touch inventories and
+ * market items, so the methods must be called on the main thread.
+ */
 public class TransactionHandler {
-    private static final long DECIMAL_SCALE = MoneyFormat.DECIMAL_SCALE;
-    private final MoneyFormat moneyFormat;
+    private static final Logger LOGGER = Logger.getLogger(TransactionHandler.class.getName());
+
     private final EconomyManager economyManager;
     private final MarketMath marketMath;
     private final ConfigManager configManager;
-    private final Player player;
     private final StockHandler stockHandler;
-
+    private final SettlementPipeline pipeline;
+    private final OrderBatcher batcher;
+    private final InventoryCountCache inventoryCounts;
+    private final ItemDelivery itemReturns;
+    private final Function<UUID, Player> playerLookup;
+
+    /**
+     * @param pipeline        settles economy calls off the main thread, or null to settle them inline
+     * @param batcher         clears orders together once per tick, or null to fill each order immediately
+     * @param inventoryCounts owned counts shown on trade screens, invalidated for every inventory a trade changes
+     * @param itemReturns     gives back the items of a sale whose payout failed, also to players who left meanwhile
+     * @param playerLookup    resolves an online player by id, e.g. {@code Bukkit::getPlayer}
+     */
     public TransactionHandler(
-            MoneyFormat     moneyFormat,
-            Player          player,
-            EconomyManager  economyManager,
-            ConfigManager   configManager,
-            MarketMath      marketMath,
-            StockHandler    stockHandler
+            EconomyManager          economyManager,
+            ConfigManager           configManager,
+            MarketMath              marketMath,
+            StockHandler            stockHandler,
+            SettlementPipeline      pipeline,
+            OrderBatcher            batcher,
+            InventoryCountCache     inventoryCounts,
+            ItemDelivery            itemReturns,
+            Function<UUID, Player>  playerLookup
     )
     {
-        if (marketMath == null || configManager == null || player == null) {
+        if (marketMath == null || configManager == null || inventoryCounts == null || itemReturns == null
+                || playerLookup == null) {
             throw new IllegalArgumentException("All parameters must be non-null");
         }
-        this.moneyFormat        = moneyFormat;
         this.economyManager     = economyManager;
         this.stockHandler       = stockHandler;
         this.marketMath         = marketMath;
         this.configManager      = configManager;
-        this.player             = player;
+        this.pipeline           = pipeline;
+        this.batcher            = batcher;
+        this.inventoryCounts    = inventoryCounts;
+        this.itemReturns        = itemReturns;
+        this.playerLookup       = playerLookup;
     }
 
-    public boolean performBuyTransaction(String itemName, int requestedAmount) {
-        MarketItem item = getItemOrSendError(itemName);
-        if (item == null) return false;
-
-        int adjustedAmount = adjustAmount(item, requestedAmount);
-        if (!processPurchase(item, adjustedAmount)) return false;
-
-        updateMarketItemPriceAndStock(item, adjustedAmount, true);
-        parseUpgradeBaseStockValues(item, adjustedAmount);
-
-        stockHandler.upgradeStockRegeneration(item, adjustedAmount);
+    /**
+     * Buys for the player. Stock and price are reserved and the purchase sized to what fits
+     * immediately; the items are only handed over once the payment went through. With an async
+     * pipeline the payment settles on a worker and the returned future completes on the main
+     * thread once the purchase is committed or refunded.
+     */
+    public CompletableFuture<TransactionResult> performBuyTransaction(TransactionRequest request) {
+        int requestedAmount = request.amount();
+        Status invalid = validate(request);
+        if (invalid != null) return failed(invalid, requestedAmount);
+
+        MarketItem item = settledItem(request.itemId());
+        Player player = playerLookup.apply(request.playerId());
+        if (batcher != null) return batcher.submit(player, item, true, requestedAmount);
+
+        int availableStock = item.getCurrentStock() - (pipeline == null ? 0 : pipeline.getReservedStock(item));
+        if (availableStock <= 0) return failed(Status.OUT_OF_STOCK, requestedAmount);
+
+        // Only what fits is bought, so it is sized and priced before any money moves
+        InventoryPlan inventory = InventoryPlan.scan(player.getInventory());
+        int amount = inventory.planAdd(item.getMaterial(), Math.min(requestedAmount, availableStock));
+        if (amount <= 0) return failed(Status.INVENTORY_FULL, requestedAmount);
+
+        long quote = quotedPrice(item);
+        long totalPrice = marketMath.getTotalPriceOfItem(item, quote, amount, true);
+        if (PricingEngine.isSaturated(totalPrice)) return failed(Status.PRICE_TOO_HIGH, requestedAmount);
+
+        UUID playerId = request.playerId();
+        if (pipeline == null) {
+            if (!economyManager.withdraw(playerId, totalPrice)) return failed(Status.PAYMENT_FAILED, requestedAmount);
+            // Same tick as the scan, so the plan still matches the inventory
+            inventory.apply();
+            inventoryCounts.invalidate(player, item.getMaterial());
+            return CompletableFuture.completedFuture(commitPurchase(player, item, requestedAmount, amount, totalPrice));
+        }
 
-        return true;
+        pipeline.reserve(item, amount, true);
+        return pipeline.settle(() -> economyManager.withdraw(playerId, totalPrice))
+                .thenApply(paid -> {
+                    pipeline.release(item, amount, true);
+                    if (!paid) return TransactionResult.failed(Status.PAYMENT_FAILED, requestedAmount);
+                    return deliverPurchase(player, item, requestedAmount, amount, quote, totalPrice);
+                });
     }
 
-    public boolean performSellTransaction(String itemName, int requestedAmount) {
-        MarketItem item = getItemOrSendError(itemName);
-        if (item == null) return false;
-
-        int adjustedAmount = adjustAmountBasedOnInventory(item, requestedAmount);
-        if (adjustedAmount <= 0) return false;
-
-        if (!removeItemsFromInventory(item, adjustedAmount)) return false;
-
-        TransactionResult result = calculateTransactionResult(item, adjustedAmount);
-        completeSellTransaction(item, adjustedAmount, result);
-        stockHandler.upgradeStockRegeneration(item, adjustedAmount);
+    /**
+     * Sells for the player from stacks without metadata. Items are taken immediately; with an
+     * async pipeline the payout settles on a worker and the items are returned if it fails, on
+     * the player's next join if they left meanwhile.
+     */
+    public CompletableFuture<TransactionResult> performSellTransaction(TransactionRequest request) {
+        int requestedAmount = request.amount();
+        Status invalid = validate(request);
+        if (invalid != null) return failed(invalid, requestedAmount);
+
+        MarketItem item = settledItem(request.itemId());
+        Player player = playerLookup.apply(request.playerId());
+        if (batcher != null) return batcher.submit(player, item, false, requestedAmount);
+
+        // Unpaid items are returned as plain stacks, so named or enchanted ones are never taken
+        InventoryPlan inventory = InventoryPlan.scan(player.getInventory());
+        int amount = inventory.planRemovePlain(item.getMaterial(), requestedAmount);
+        if (amount <= 0) return failed(Status.NOTHING_TO_SELL, requestedAmount);
+        inventory.apply();
+        inventoryCounts.invalidate(player, item.getMaterial());
+
+        long totalBeforeTax = marketMath.getTotalPriceOfItem(item, quotedPrice(item), amount, false);
+        double tax = totalBeforeTax * item.getTaxRate();
+        long earningsAfterTax = (long) (totalBeforeTax - tax);
+        TransactionResult sold = TransactionResult.success(requestedAmount, amount, earningsAfterTax, (long) tax);
 
-        sendSuccess("Successfully sold %d %s for %s. Tax of %s deducted."
-                .formatted(adjustedAmount, item.getName(),
-                        moneyFormat.formatPrice(result.earningsAfterTax()),
-                        moneyFormat.formatPrice((long) result.tax())));
+        UUID playerId = request.playerId();
+        if (pipeline == null) {
+            economyManager.deposit(playerId, earningsAfterTax);
+            return CompletableFuture.completedFuture(finishSale(player, item, sold, true));
+        }
 
-        return true;
+        pipeline.reserve(item, amount, false);
+        return pipeline.settle(() -> {
+                    economyManager.deposit(playerId, earningsAfterTax);
+                    return true;
+                })
+                .thenApply(paid -> {
+                    pipeline.release(item, amount, false);
+                    return finishSale(player, item, sold, paid);
+                });
     }
 
-    private int adjustAmountBasedOnStockAvailability(MarketItem item, int requestedAmount) {
-        int availableStock = item.getCurrentStock();
+    /**
+     * Prices what {@link #performSellAllTransaction} would sell right now without touching the
+     * inventory or the market, so the player can confirm the sale first.
+     *
+     * @return the units that would be sold and the money they would bring after tax
+     */
+    public TransactionResult quoteSellAll(UUID playerId) {
+        Player player = playerLookup.apply(playerId);
+        if (player == null) return TransactionResult.failed(Status.PLAYER_OFFLINE, 0);
+
+        SellAll sellAll = planSellAll(InventoryPlan.scan(player.getInventory()));
+        if (sellAll.sales().isEmpty()) return TransactionResult.failed(Status.NOTHING_TO_SELL, sellAll.offered());
+        return sellAll.result();
+    }
 
-        if (availableStock == 0) {
-            sendError("There is no stock available");
-            return 0;
+    /**
+     * Sells every listed material the player holds in plain stacks at once; named, enchanted or
+     * damaged items are kept. The inventory is scanned once, each material is priced along its
+     * own curve, and the player is paid with a single deposit; listeners hear about every
+     * changed item in one flush. Always settles immediately, even when orders are batched.
+     *
+     * @return the total units sold and the money received after tax
+     */
+    public CompletableFuture<TransactionResult> performSellAllTransaction(UUID playerId) {
+        Player player = playerLookup.apply(playerId);
+        if (player == null) return failed(Status.PLAYER_OFFLINE, 0);
+
+        InventoryPlan inventory = InventoryPlan.scan(player.getInventory());
+        SellAll sellAll = planSellAll(inventory);
+        List<Sale> sales = sellAll.sales();
+        if (sales.isEmpty()) return failed(Status.NOTHING_TO_SELL, sellAll.offered());
+        inventory.apply();
+        sales.forEach(sale -> inventoryCounts.invalidate(player, sale.item().getMaterial()));
+
+        TransactionResult sold = sellAll.result();
+        long totalEarnings = sold.totalPrice();
+        if (pipeline == null) {
+            economyManager.deposit(playerId, totalEarnings);
+            return CompletableFuture.completedFuture(finishSellAll(player, sales, sold, true));
         }
 
-        if (availableStock >= requestedAmount) return requestedAmount;
-
-        sendWarning("The amount selected (%d) exceeds stock (%d). Buying only %d."
-                .formatted(requestedAmount, availableStock, availableStock));
-        return availableStock;
+        sales.forEach(sale -> pipeline.reserve(sale.item(), sale.amount(), false));
+        return pipeline.settle(() -> {
+                    economyManager.deposit(playerId, totalEarnings);
+                    return true;
+                })
+                .thenApply(paid -> {
+                    sales.forEach(sale -> pipeline.release(sale.item(), sale.amount(), false));
+                    return finishSellAll(player, sales, sold, paid);
+                });
     }
 
-    public int adjustAmount(MarketItem item, int amount) {
-        int adjustedAmount = adjustAmountBasedOnStockAvailability(item, amount);
-        return InventoryHandler.addItemToPlayer(player, item.getMaterial(), adjustedAmount);
-    }
-
-    private int adjustAmountBasedOnInventory(MarketItem item, int requestedAmount) {
-        int playerItems = InventoryHandler.countItems(player, item.getMaterial());
-        if (playerItems <= 0) {
-            sendError("You have no %s to sell".formatted(item.getName()));
-            return 0;
+    /**
+     * Prices every listed material in the inventory's plain stacks and plans removing them.
+     * Stacks with metadata are left out, since the market would pay the plain unit price for them.
+     */
+    private SellAll planSellAll(InventoryPlan inventory) {
+        MarketIndex index = configManager.getIndex();
+        List<Sale> sales = new ArrayList<>();
+        int offered = 0;
+        long earnings = 0;
+        long taxes = 0;
+
+        for (Map.Entry<Material, Integer> entry : inventory.plainCounts().entrySet()) {
+            MarketItem item = index.get(entry.getKey());
+            if (item == null) continue;
+
+            int amount = entry.getValue();
+            offered += amount;
+            stockHandler.settle(item);
+            long totalBeforeTax = marketMath.getTotalPriceOfItem(item, quotedPrice(item), amount, false);
+            if (PricingEngine.isSaturated(totalBeforeTax)) continue;
+
+            double tax = totalBeforeTax * item.getTaxRate();
+            long earningsAfterTax = (long) (totalBeforeTax - tax);
+            if (earningsAfterTax > Long.MAX_VALUE - earnings) continue;
+
+            inventory.planRemovePlain(item.getMaterial(), amount);
+            sales.add(new Sale(item, amount, earningsAfterTax));
+            earnings += earningsAfterTax;
+            taxes += (long) tax;
         }
 
-        int adjustedAmount = Math.min(requestedAmount, playerItems);
-        if (adjustedAmount < requestedAmount) {
-            sendWarning("Attempting to sell %d, only %d available".formatted(requestedAmount, playerItems));
-        }
-        return adjustedAmount;
+        int soldAmount = sales.stream().mapToInt(Sale::amount).sum();
+        return new SellAll(sales, offered, TransactionResult.success(offered, soldAmount, earnings, taxes));
     }
 
-    public void parseUpgradeBaseStockValues(MarketItem item, int amount) {
-        double increasePercent = configManager.getStockIncreasePercentage();
-        int increaseNumber = (int) (amount * increasePercent);
+    /**
+     * @return the reason the request cannot be traded, or null if it can
+     */
+    private Status validate(TransactionRequest request) {
+        if (request.amount() <= 0) return Status.INVALID_AMOUNT;
+        if (!configManager.getItems().containsKey(request.itemId())) return Status.ITEM_NOT_FOUND;
+        if (playerLookup.apply(request.playerId()) == null) return Status.PLAYER_OFFLINE;
+        return null;
+    }
 
-        stockHandler.upgradeBaseStock(item, increaseNumber);
+    private MarketItem settledItem(String itemId) {
+        MarketItem item = configManager.getItems().get(itemId);
+        stockHandler.settle(item);
+        return item;
     }
 
-    public void updateMarketItemPriceAndStock(MarketItem item, int soldAmount, boolean isBuy) {
-        long lastPrice = marketMath.getLastPriceOfItem(item, soldAmount, isBuy);
-        item.setCurrentPrice(lastPrice);
-        item.setCurrentStock(item.getCurrentStock() + (isBuy ? -soldAmount : soldAmount));
-        marketMath.updatePriceHistory(item, lastPrice);
-        stockHandler.markItemForUpdate(item);
+    /**
+     * Price the next quote starts from: the committed price walked along the curve by every
+     * purchase and sale still settling, so concurrent trades do not all get the same price.
+     */
+    private long quotedPrice(MarketItem item) {
+        if (pipeline == null) return item.getCurrentPrice();
+        long price = marketMath.getLastPriceOfItem(item, pipeline.getReservedStock(item), true);
+        return marketMath.getLastPriceOfItem(item, price, pipeline.getReservedSales(item), false);
     }
 
-    private boolean removeItemsFromInventory(MarketItem item, int amount) {
-        if (!InventoryHandler.removeItemFromPlayer(player, item.getMaterial(), amount)) {
-            sendError("Failed to remove items from inventory");
-            return false;
+    /**
+     * Hands a paid purchase over to the inventory as it is now, which may have changed while
+     * the payment settled. Units that no longer fit, or all of them if the player left, are
+     * refunded at the price they were quoted at.
+     */
+    private TransactionResult deliverPurchase(Player player, MarketItem item, int requestedAmount, int amount,
+                                              long quote, long totalPrice) {
+        int delivered = 0;
+        if (player.isOnline()) {
+            InventoryPlan inventory = InventoryPlan.scan(player.getInventory());
+            delivered = inventory.planAdd(item.getMaterial(), amount);
+            inventory.apply();
+            inventoryCounts.invalidate(player, item.getMaterial());
         }
-        return true;
-    }
+        if (delivered == amount) return commitPurchase(player, item, requestedAmount, amount, totalPrice);
 
-    private MarketItem getItemOrSendError(String itemName) {
-        MarketItem item = configManager.getItems().get(itemName);
-        if (item == null) sendError("Item not found!");
-        return item;
+        // The first units along the curve are the cheapest, so those are the ones kept
+        long cost = marketMath.getTotalPriceOfItem(item, quote, delivered, true);
+        refund(player.getUniqueId(), totalPrice - cost);
+        if (delivered == 0) {
+            return TransactionResult.failed(player.isOnline() ? Status.INVENTORY_FULL : Status.PLAYER_OFFLINE, requestedAmount);
+        }
+        return commitPurchase(player, item, requestedAmount, delivered, cost);
     }
 
-    private TransactionResult calculateTransactionResult(MarketItem item, int amount) {
-        long totalBeforeTax = marketMath.getTotalPriceOfItem(item, amount, false);
-        double tax = totalBeforeTax * item.getTaxRate();
-        long earningsAfterTax = (long) (totalBeforeTax - tax);
-        return new TransactionResult(earningsAfterTax, tax);
+    private TransactionResult commitPurchase(Player player, MarketItem item, int requestedAmount, int amount, long totalPrice) {
+        recordTrade(player.getUniqueId(), item, JournalRecord.Type.BUY, amount, totalPrice);
+        applyTrade(item, amount, true);
+        stockHandler.notifyItemsUpdated(List.of(item));
+        return TransactionResult.success(requestedAmount, amount, totalPrice, 0L);
     }
 
-    private void completeSellTransaction(MarketItem item, int amount, TransactionResult result) {
-        economyManager.deposit(player.getUniqueId(), result.earningsAfterTax());
-        updateMarketItemPriceAndStock(item, amount, false);
-        parseUpgradeBaseStockValues(item, amount);
+    private void refund(UUID playerId, long amount) {
+        if (amount <= 0) return;
+        if (pipeline == null) {
+            economyManager.deposit(playerId, amount);
+            return;
+        }
+        pipeline.settle(() -> {
+            economyManager.deposit(playerId, amount);
+            return true;
+        }).thenAccept(refunded -> {
+            if (!refunded) LOGGER.severe("Failed to refund " + amount + " to " + playerId + " for an undelivered purchase");
+        });
     }
 
-    private boolean processPurchase(MarketItem item, int amount) {
-        UUID playerId = player.getUniqueId();
+    private TransactionResult finishSale(Player player, MarketItem item, TransactionResult sold, boolean paid) {
+        if (!paid) {
+            itemReturns.deliver(player.getUniqueId(), item.getMaterial(), sold.amount());
+            return TransactionResult.failed(Status.PAYMENT_FAILED, sold.requestedAmount());
+        }
+
+        recordTrade(player.getUniqueId(), item, JournalRecord.Type.SELL, sold.amount(), sold.totalPrice());
+        applyTrade(item, sold.amount(), false);
+        stockHandler.notifyItemsUpdated(List.of(item));
+        return sold;
+    }
 
-        long totalPrice = marketMath.getTotalPriceOfItem(item, amount, true);
+    private TransactionResult finishSellAll(Player player, List<Sale> sales, TransactionResult sold, boolean paid) {
+        if (!paid) {
+            sales.forEach(sale -> itemReturns.deliver(player.getUniqueId(), sale.item().getMaterial(), sale.amount()));
+            return TransactionResult.failed(Status.PAYMENT_FAILED, sold.requestedAmount());
+        }
 
-        if (!economyManager.withdraw(playerId, totalPrice)) {
-            InventoryHandler.removeItemFromPlayer(player, item.getMaterial(), amount);
-            sendError("Payment failed after partial item addition!");
-            return false;
+        List<MarketItem> changed = new ArrayList<>(sales.size());
+        for (Sale sale : sales) {
+            recordTrade(player.getUniqueId(), sale.item(), JournalRecord.Type.SELL, sale.amount(), sale.earnings());
+            applyTrade(sale.item(), sale.amount(), false);
+            changed.add(sale.item());
         }
+        stockHandler.notifyItemsUpdated(changed);
+        return sold;
+    }
 
-        sendSuccess("Successfully purchased %d %s for %s".formatted(amount, item.getName(), moneyFormat.formatPrice(totalPrice)));
+    /**
+     * Moves the item's price and stock along the curve and runs the per-trade bookkeeping.
+     * Callers notify the stock listeners.
+     */
+    private void applyTrade(MarketItem item, int amount, boolean isBuy) {
+        long lastPrice = marketMath.getLastPriceOfItem(item, amount, isBuy);
+        item.setCurrentPrice(lastPrice);
+        item.setCurrentStock(item.getCurrentStock() + (isBuy ? -amount : amount));
+        marketMath.updatePriceHistory(item, lastPrice, amount);
+        stockHandler.markItemForUpdate(item);
 
-        return true;
+        int increaseNumber = (int) (amount * configManager.getStockIncreasePercentage());
+        stockHandler.upgradeBaseStock(item, increaseNumber);
+        stockHandler.upgradeStockRegeneration(item, amount);
+        configManager.getJournal().append(isBuy ? JournalRecord.Type.BUY : JournalRecord.Type.SELL, item, amount);
     }
 
-    private void sendError(String message) {
-        player.sendMessage(Component.text(message, NamedTextColor.RED));
+    private void recordTrade(UUID playerId, MarketItem item, JournalRecord.Type side, int amount, long totalPrice) {
+        configManager.recordTrade(new TradeRecord(
+                System.currentTimeMillis(),
+                playerId,
+                item.getMaterial().name(),
+                side,
+                amount,
+                totalPrice
+        ));
     }
 
-    private void sendWarning(String message) {
-        player.sendMessage(Component.text(message, NamedTextColor.GOLD));
-    }
+    private record Sale(MarketItem item, int amount, long earnings) {}
 
-    private void sendSuccess(String message) {
-        player.sendMessage(Component.text(message, NamedTextColor.GREEN));
-    }
+    private record SellAll(List<Sale> sales, int offered, TransactionResult result) {}
 
-    private record TransactionResult(long earningsAfterTax, double tax) {}
-}
\ No newline at end of file
+    private static CompletableFuture<TransactionResult> failed(Status status, int requestedAmount) {
+        return CompletableFuture.completedFuture(TransactionResult.failed(status, requestedAmount));
+    }
+}
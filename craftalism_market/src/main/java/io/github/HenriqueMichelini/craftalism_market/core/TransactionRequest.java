@@ -0,0 +1,10 @@
+package io.github.HenriqueMichelini.craftalism_market.core;
+
+import java.util.UUID;
+
+/**
+ * A player's instant trade against the market curve.
+ *
+ * @param itemId the item's key in the market, its lower-case material name
+ */
+public record TransactionRequest(String itemId, UUID playerId, int amount) {}
@@ -0,0 +1,44 @@
+package io.github.HenriqueMichelini.craftalism_market.core;
+
+/**
+ * Outcome of a {@link TransactionRequest}. Callers decide how to present it.
+ *
+ * @param amount     units actually traded; may be less than requested when stock or inventory ran short
+ * @param totalPrice money moved: paid for a purchase, received after tax for a sale
+ * @param tax        tax withheld from a sale; zero for purchases
+ */
+public record TransactionResult(Status status, int requestedAmount, int amount, long totalPrice, long tax) {
+    public enum Status {
+        SUCCESS,
+        INVALID_AMOUNT,
+        ITEM_NOT_FOUND,
+        PLAYER_OFFLINE,
+        OUT_OF_STOCK,
+        INVENTORY_FULL,
+        NOTHING_TO_SELL,
+        /** The quote saturated; the amount is too large to price. */
+        PRICE_TOO_HIGH,
+        PAYMENT_FAILED,
+        /** Clearing the order threw; see the server log. */
+        ERROR
+    }
+
+    public static TransactionResult success(int requestedAmount, int amount, long totalPrice, long tax) {
+        return new TransactionResult(Status.SUCCESS, requestedAmount, amount, totalPrice, tax);
+    }
+
+    public static TransactionResult failed(Status status, int requestedAmount) {
+        return new TransactionResult(status, requestedAmount, 0, 0L, 0L);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    /**
+     * @return true if the trade went through for fewer units than requested
+     */
+    public boolean isPartial() {
+        return isSuccess() && amount < requestedAmount;
+    }
+}
@@ -1,4 +1,19 @@
 package io.github.HenriqueMichelini.craftalism_market.events;
 
-public class GameEvents {
+import io.github.HenriqueMichelini.craftalism_market.orders.OrderBookManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+public class GameEvents implements Listener {
+    private final OrderBookManager orderBookManager;
+
+    public GameEvents(OrderBookManager orderBookManager) {
+        this.orderBookManager = orderBookManager;
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        orderBookManager.deliverPending(event.getPlayer());
+    }
 }
@@ -1,19 +1,24 @@
 package io.github.HenriqueMichelini.craftalism_market.gui.components;
 
+import dev.triumphteam.gui.components.util.GuiAction;
 import dev.triumphteam.gui.guis.Gui;
 import dev.triumphteam.gui.guis.GuiItem;
 import io.github.HenriqueMichelini.craftalism_market.CraftalismMarket;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public abstract class BaseGUI {
@@ -22,6 +27,11 @@ public abstract class BaseGUI {
 
     protected static final int BACK_BUTTON_SLOT = 49;
 
+    // The stack each diffed slot last showed, before triumph tagged its copy
+    private final Map<Integer, ItemStack> renderedSlots = new HashMap<>();
+    private int lastRefreshTick = Integer.MIN_VALUE;
+    private boolean refreshScheduled;
+
     public BaseGUI(String title, int rows, CraftalismMarket plugin) {
         this.gui = Gui.gui()
                 .title(Component.text(title, NamedTextColor.GREEN))
@@ -64,6 +74,46 @@ public abstract class BaseGUI {
         return new GuiItem(item, e -> onClick.accept((Player) e.getWhoClicked()));
     }
 
+    /**
+     * Shows a freshly rendered stack in a slot, sending it to viewers only when it differs from
+     * what the slot already shows. The stack is copied before it is handed to triumph, so shared
+     * (cached) stacks can be passed as they are.
+     *
+     * @return true if the slot changed
+     */
+    protected boolean renderSlot(int slot, ItemStack rendered, GuiAction<InventoryClickEvent> action) {
+        ItemStack shown = renderedSlots.get(slot);
+        if (shown == rendered || rendered.equals(shown)) return false;
+
+        renderedSlots.put(slot, rendered);
+        gui.updateItem(slot, new GuiItem(rendered.clone(), action));
+        return true;
+    }
+
+    /**
+     * Runs a refresh now, or once at the end of the configured refresh interval if this GUI
+     * already refreshed within it. Requests made while one is pending are folded into it, so
+     * the refresh must read the current state when it runs. Main thread only.
+     */
+    protected void throttleRefresh(Runnable refresh) {
+        if (refreshScheduled) return;
+
+        int interval = plugin.getConfigManager().getGuiRefreshIntervalTicks();
+        long elapsed = (long) Bukkit.getCurrentTick() - lastRefreshTick;
+        if (elapsed >= interval) {
+            lastRefreshTick = Bukkit.getCurrentTick();
+            refresh.run();
+            return;
+        }
+
+        refreshScheduled = true;
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            refreshScheduled = false;
+            lastRefreshTick = Bukkit.getCurrentTick();
+            refresh.run();
+        }, interval - elapsed);
+    }
+
     protected void addBackButton(Consumer<Player> onBack) {
         String cacheKey = "back_button";
         GuiItem backButton = ButtonFactory.createCachedButton(
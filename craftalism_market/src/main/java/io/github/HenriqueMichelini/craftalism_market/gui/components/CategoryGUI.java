@@ -1,85 +1,73 @@
 package io.github.HenriqueMichelini.craftalism_market.gui.components;
 
-import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.CraftalismMarket;
 import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
+import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
 import org.bukkit.entity.Player;
 
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class CategoryGUI extends BaseGUI {
+    private final String category;
     private final ConfigManager configManager;
-    private final BiConsumer<Player, String> onItemSelect;
-    private final MoneyFormat moneyFormat;
+    private final StockHandler stockHandler;
+    private final BiConsumer<Player, MarketItem> onItemSelect;
+    private final MarketItemRenderer renderer;
+    private final Set<MarketItem> pendingItems = new LinkedHashSet<>();
 
     public CategoryGUI(
             String category,
             CraftalismMarket plugin,
             ConfigManager configManager,
-            BiConsumer<Player, String> onItemSelect,
+            BiConsumer<Player, MarketItem> onItemSelect,
             Consumer<Player> onBack,
-            MoneyFormat moneyFormat
+            StockHandler stockHandler,
+            MarketItemRenderer renderer
     ) {
         super(category, 6, plugin);
+        this.category = category;
         this.configManager = configManager;
+        this.stockHandler = stockHandler;
         this.onItemSelect = onItemSelect;
-        this.moneyFormat = moneyFormat;
+        this.renderer = renderer;
         populateItems(category);
         addBackButton(onBack);
     }
 
-    private void populateItems(String category) {
-        configManager.getItems().values().stream()
-                .filter(item -> item.getCategory().equals(category))
-                .forEach(this::addItemButton);
+    @Override
+    public void open(Player player) {
+        // Settled items notify the GuiManager, which refreshes their buttons here
+        configManager.getIndex().inCategory(category).forEach(stockHandler::settle);
+        super.open(player);
     }
 
-    private List<Component> createItemLore(MarketItem item) {
-        Component stockComponent = Component.text("Stock: ", NamedTextColor.GRAY)
-                .append(Component.text(item.getCurrentStock(), getStockColor(item)));
+    private void populateItems(String category) {
+        configManager.getIndex().inCategory(category).forEach(this::addItemButton);
+    }
 
-        return List.of(
-                Component.text("Price: ", NamedTextColor.GRAY)
-                        .append(Component.text(moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.GREEN)),
-                stockComponent
-        );
+    private void addItemButton(MarketItem item) {
+        renderItemButton(item);
     }
 
-    private NamedTextColor getStockColor(MarketItem item) {
-        double ratio = (double) item.getCurrentStock() / item.getBaseStock();
-        if (ratio > 0.75) return NamedTextColor.DARK_GREEN;
-        if (ratio > 0.5) return NamedTextColor.YELLOW;
-        if (ratio > 0.25) return NamedTextColor.GOLD;
-        return NamedTextColor.RED;
+    /**
+     * Queues the item's button for the next throttled refresh of this category.
+     */
+    public void refreshItem(MarketItem updatedItem) {
+        pendingItems.add(updatedItem);
+        throttleRefresh(this::flushPendingItems);
     }
 
-    private void addItemButton(MarketItem item) {
-        String itemMaterialName = item.getMaterial().name().toLowerCase();
-        gui.setItem(item.getSlot(), createButton(
-                item.getMaterial(),
-                Component.text(item.getName(), NamedTextColor.GREEN),
-                createItemLore(item),
-                event -> {
-                        Player player = event.getPlayer();
-                        onItemSelect.accept(player, itemMaterialName);
-                }
-        ));
+    private void flushPendingItems() {
+        pendingItems.forEach(this::renderItemButton);
+        pendingItems.clear();
     }
 
-    public void refreshItem(String itemName) {
-        MarketItem updatedItem = configManager.getItems().get(itemName);
-        if (updatedItem != null) {
-            gui.updateItem(updatedItem.getSlot(), createButton(
-                    updatedItem.getMaterial(),
-                    Component.text(updatedItem.getName(), NamedTextColor.GREEN),
-                    createItemLore(updatedItem),
-                    event -> onItemSelect.accept(event.getPlayer(), itemName)
-            ));
-        }
+    private void renderItemButton(MarketItem item) {
+        renderSlot(item.getSlot(), renderer.categoryIcon(item),
+                event -> onItemSelect.accept((Player) event.getWhoClicked(), item));
     }
 }
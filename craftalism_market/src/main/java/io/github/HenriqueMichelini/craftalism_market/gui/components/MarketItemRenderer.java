@@ -0,0 +1,167 @@
+package io.github.HenriqueMichelini.craftalism_market.gui.components;
+
+import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
+import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.PriceHistoryView;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * Renders market item icons and lore once per item state and hands out the cached result
+ * until {@link MarketItem#getVersion()} moves.
+ * <p>
+ * Trade buttons are also keyed by quantity, so each amount a player selects is priced and
+ * formatted once per state. Returned stacks and lists are shared; callers must not modify
+ * them. Main thread only.
+ */
+public class MarketItemRenderer {
+    private static final int HISTORY_ENTRIES = 5;
+    // Quantities quoted per item state before the oldest quotes are dropped
+    private static final int MAX_QUOTES_PER_ITEM = 32;
+
+    private final MarketMath marketMath;
+    private final MoneyFormat moneyFormat;
+    private final Map<MarketItem, Rendered> cache = new IdentityHashMap<>();
+
+    public MarketItemRenderer(MarketMath marketMath, MoneyFormat moneyFormat) {
+        this.marketMath = marketMath;
+        this.moneyFormat = moneyFormat;
+    }
+
+    /**
+     * The item's button in its category: name, price and stock.
+     */
+    public ItemStack categoryIcon(MarketItem item) {
+        Rendered rendered = current(item);
+        if (rendered.categoryIcon == null) {
+            Component stockComponent = Component.text("Stock: ", NamedTextColor.GRAY)
+                    .append(Component.text(item.getCurrentStock(), getStockColor(item)));
+            rendered.categoryIcon = createStack(
+                    item.getMaterial(),
+                    Component.text(item.getName(), NamedTextColor.GREEN),
+                    List.of(
+                            Component.text("Price: ", NamedTextColor.GRAY)
+                                    .append(Component.text(moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.GREEN)),
+                            stockComponent
+                    )
+            );
+        }
+        return rendered.categoryIcon;
+    }
+
+    /**
+     * Lore of the trade screen's centre display: price, tax, stock and recent prices.
+     */
+    public List<Component> detailLore(MarketItem item) {
+        Rendered rendered = current(item);
+        if (rendered.detailLore == null) {
+            List<Component> lore = new ArrayList<>();
+            lore.add(Component.text("Buy Price: " + moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.GREEN));
+            lore.add(Component.text("Sell Tax: " + item.getTaxRate(), NamedTextColor.RED));
+            lore.add(Component.text("Stock: " + item.getCurrentStock(), NamedTextColor.AQUA));
+            lore.add(Component.empty());
+            addPriceHistory(item, lore);
+            rendered.detailLore = List.copyOf(lore);
+        }
+        return rendered.detailLore;
+    }
+
+    /**
+     * A buy or sell button quoting {@code quantity} units at the item's current state.
+     */
+    public ItemStack tradeButton(MarketItem item, boolean isBuy, int quantity) {
+        Rendered rendered = current(item);
+        long key = ((long) quantity << 1) | (isBuy ? 1L : 0L);
+        ItemStack button = rendered.tradeButtons.get(key);
+        if (button == null) {
+            if (rendered.tradeButtons.size() >= MAX_QUOTES_PER_ITEM) rendered.tradeButtons.clear();
+            button = createTradeButton(item, isBuy, quantity);
+            rendered.tradeButtons.put(key, button);
+        }
+        return button;
+    }
+
+    private ItemStack createTradeButton(MarketItem item, boolean isBuy, int quantity) {
+        Material material = isBuy ? Material.SLIME_BLOCK : Material.HONEY_BLOCK;
+        NamedTextColor color = isBuy ? NamedTextColor.GREEN : NamedTextColor.GOLD;
+        long total = marketMath.getTotalPriceOfItem(item, quantity, isBuy);
+
+        Component totalComponent = PricingEngine.isSaturated(total)
+                ? Component.text("➤ Total: ", NamedTextColor.GRAY)
+                        .append(Component.text("Too high to quote", NamedTextColor.RED))
+                : Component.text("➤ Total: ", NamedTextColor.GRAY)
+                        .append(Component.text(moneyFormat.formatPrice(total), color));
+
+        return createStack(
+                material,
+                Component.text(isBuy ? "Buy" : "Sell", color),
+                List.of(
+                        Component.text("➤ Unit Price: ", NamedTextColor.GRAY)
+                                .append(Component.text(moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.WHITE)),
+                        Component.text("➤ Quantity: ", NamedTextColor.GRAY)
+                                .append(Component.text(quantity, NamedTextColor.WHITE)),
+                        totalComponent
+                )
+        );
+    }
+
+    private void addPriceHistory(MarketItem item, List<Component> lore) {
+        PriceHistoryView history = item.getPriceHistory();
+        if (history.isEmpty()) {
+            lore.add(Component.text("Price History: No data", NamedTextColor.GRAY));
+            return;
+        }
+
+        lore.add(Component.text("Price History:", NamedTextColor.DARK_AQUA));
+        history.forEachRecent(HISTORY_ENTRIES, price ->
+                lore.add(Component.text("⏺ ", NamedTextColor.DARK_GRAY)
+                        .append(Component.text(moneyFormat.formatPrice(price), NamedTextColor.GRAY)))
+        );
+    }
+
+    private NamedTextColor getStockColor(MarketItem item) {
+        double ratio = (double) item.getCurrentStock() / item.getBaseStock();
+        if (ratio > 0.75) return NamedTextColor.DARK_GREEN;
+        if (ratio > 0.5) return NamedTextColor.YELLOW;
+        if (ratio > 0.25) return NamedTextColor.GOLD;
+        return NamedTextColor.RED;
+    }
+
+    private static ItemStack createStack(Material material, Component name, List<Component> lore) {
+        ItemStack stack = new ItemStack(material);
+        ItemMeta meta = stack.getItemMeta();
+        meta.displayName(name);
+        meta.lore(lore);
+        stack.setItemMeta(meta);
+        return stack;
+    }
+
+    /**
+     * @return the item's cache entry, emptied if the item changed since it was filled
+     */
+    private Rendered current(MarketItem item) {
+        Rendered rendered = cache.computeIfAbsent(item, key -> new Rendered());
+        long version = item.getVersion();
+        if (rendered.version != version) {
+            rendered.version = version;
+            rendered.categoryIcon = null;
+            rendered.detailLore = null;
+            rendered.tradeButtons.clear();
+        }
+        return rendered;
+    }
+
+    private static final class Rendered {
+        private long version = -1;
+        private ItemStack categoryIcon;
+        private List<Component> detailLore;
+        private final Map<Long, ItemStack> tradeButtons = new HashMap<>();
+    }
+}
@@ -1,18 +1,14 @@
 package io.github.HenriqueMichelini.craftalism_market.gui.components;
 
-import dev.triumphteam.gui.builder.item.ItemBuilder;
 import dev.triumphteam.gui.guis.GuiItem;
 import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.CraftalismMarket;
-import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
 import io.github.HenriqueMichelini.craftalism_market.gui.manager.GuiManager;
-import io.github.HenriqueMichelini.craftalism_market.core.TransactionHandler;
-import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionRequest;
+import io.github.HenriqueMichelini.craftalism_market.core.TransactionResult;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
-import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
@@ -36,169 +32,108 @@ public class TradeGUI extends BaseGUI {
             DEDUCT_SLOTS = {8, 17, 26, 35, 44, 53},
             AMOUNTS = {1, 8, 32, 64, 576, 2304};
 
+    private final TradeViewModel viewModel;
     private final MarketItem item;
-    private final String itemName;
-    private final ConfigManager configManager;
-    private final MarketMath marketMath;
     private final GuiManager guiManager;
-    private final StockHandler stockHandler;
     private final MoneyFormat moneyFormat;
     private int selectedAmount = MIN_AMOUNT;
 
-    private int lastRefreshAmount = -1;
+    private long lastDisplayVersion = -1;
+    private int lastDisplayOwned = -1;
+    private Player viewer;
 
     public TradeGUI(
-            String itemName,
+            TradeViewModel viewModel,
             CraftalismMarket plugin,
-            ConfigManager configManager,
-            MarketMath marketMath,
-            Consumer<Player> onBack,
             GuiManager guiManager,
-            StockHandler stockHandler,
             MoneyFormat moneyFormat
     ) {
-        super("Trading: " + itemName, 6, plugin);
-        this.itemName = itemName;
-        this.configManager = configManager;
-        this.marketMath = marketMath;
-        this.item = validateItem(itemName);
+        super("Trading: " + viewModel.getItemName(), 6, plugin);
+        this.viewModel = viewModel;
+        this.item = viewModel.getItem();
         this.guiManager = guiManager;
-        this.stockHandler = stockHandler;
         this.moneyFormat = moneyFormat;
-        initialize(onBack);
+        initialize();
     }
 
-    // In TradeGUI.java
     @Override
     public void open(Player player) {
+        viewer = player;
+        // Recounted once per open, for inventory changes no event reported
+        plugin.getInventoryCountCache().invalidate(player, item.getMaterial());
+        updateItemDisplay();
         super.open(player);
-        guiManager.registerTradeGui(itemName, this);
+        guiManager.registerTradeGui(player, this);
     }
 
     @Override
     protected void onClose(Player player) {
-        guiManager.unregisterTradeGui(itemName, this);
+        guiManager.unregisterTradeGui(player, this);
     }
 
-    public void refresh() {
-        try {
-            updateItemDisplay();
-            refreshTransactionButtons();
-            refreshAmountControls();
-
-            gui.updateItem(BACK_BUTTON_SLOT, createButton(
-                    Material.BARRIER,
-                    Component.text("Back", NamedTextColor.RED),
-                    List.of(),
-                    p -> guiManager.returnToCategory(p, item.getCategory())
-            ));
+    public TradeViewModel getViewModel() {
+        return viewModel;
+    }
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                if (!gui.getInventory().getViewers().isEmpty()) {
-                    gui.update();
-                }
-            });
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to refresh TradeGUI: " + e.getMessage());
-            Component errorMsg = Component.text("GUI Error - Please reopen", NamedTextColor.RED);
-            gui.getInventory().getViewers().forEach(viewer -> {
-                if (viewer instanceof Player player) {
-                    player.sendMessage(errorMsg);
-                    gui.close(player);
-                }
-            });
-        }
+    /**
+     * Re-renders the parts that follow the item's state, at most once per refresh interval.
+     * Only slots whose content changed are sent to the viewer.
+     */
+    public void refresh() {
+        throttleRefresh(() -> {
+            try {
+                updateItemDisplay();
+                refreshTransactionButtons();
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to refresh TradeGUI: " + e.getMessage());
+                Component errorMsg = Component.text("GUI Error - Please reopen", NamedTextColor.RED);
+                gui.getInventory().getViewers().forEach(viewer -> {
+                    if (viewer instanceof Player player) {
+                        player.sendMessage(errorMsg);
+                        gui.close(player);
+                    }
+                });
+            }
+        });
     }
 
-    private void initialize(Consumer<Player> onBack) {
-        if (item == null) return;
-        addItemDisplay();
-        addTransactionButtons();
+    private void initialize() {
+        renderItemDisplay();
+        refreshTransactionButtons();
         addAmountControls();
-        addBackButton(onBack);
+        addTradeBackButton();
     }
 
-    private MarketItem validateItem(String itemName) {
-        MarketItem item = configManager.getItems().get(itemName);
-        if (item == null) {
-            plugin.getLogger().severe("Invalid item: " + itemName);
+    /**
+     * The shared detail lore for the item's state, plus the viewer's own count.
+     */
+    private void renderItemDisplay() {
+        lastDisplayVersion = item.getVersion();
+        List<Component> lore = viewModel.detailLore();
+        if (viewer != null) {
+            lastDisplayOwned = plugin.getInventoryCountCache().count(viewer, item.getMaterial());
+            lore = new ArrayList<>(lore);
+            lore.add(3, Component.text("You own: " + lastDisplayOwned, NamedTextColor.YELLOW));
         }
-        return item;
-    }
 
-    private void addItemDisplay() {
         ItemStack displayItem = new ItemStack(item.getMaterial());
         ItemMeta meta = displayItem.getItemMeta();
-        meta.lore(createDetailedLore());
+        meta.lore(lore);
         displayItem.setItemMeta(meta);
-        gui.setItem(CENTER_SLOT, ItemBuilder.from(displayItem).asGuiItem());
-    }
-
-    private List<Component> createDetailedLore() {
-        List<Component> lore = new ArrayList<>();
-        lore.add(Component.text("Buy Price: " + moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.GREEN));
-        lore.add(Component.text("Sell Tax: " + item.getTaxRate(), NamedTextColor.RED));
-        lore.add(Component.text("Stock: " + item.getCurrentStock(), NamedTextColor.AQUA));
-        lore.add(Component.empty());
-        addPriceHistory(lore);
-        return lore;
+        renderSlot(CENTER_SLOT, displayItem, null);
     }
 
-    private void addPriceHistory(List<Component> lore) {
-        List<Long> history = item.getPriceHistory();
-        int maxEntries = 5;
-
-        if (history.isEmpty()) {
-            lore.add(Component.text("Price History: No data", NamedTextColor.GRAY));
-            return;
-        }
-
-        lore.add(Component.text("Price History:", NamedTextColor.DARK_AQUA));
-        history.stream()
-                .skip(Math.max(0, history.size() - maxEntries))
-                .forEach(price ->
-                        lore.add(Component.text("⏺ ", NamedTextColor.DARK_GRAY)
-                                .append(Component.text(moneyFormat.formatPrice(price), NamedTextColor.GRAY)))
-                );
-    }
-
-    private void addTransactionButtons() {
-        gui.setItem(BUY_BUTTON_SLOT, createTransactionButton(
-                Material.SLIME_BLOCK, "Buy", NamedTextColor.GREEN, this::handleBuy));
-        gui.setItem(SELL_BUTTON_SLOT, createTransactionButton(
-                Material.HONEY_BLOCK, "Sell", NamedTextColor.GOLD, this::handleSell));
-    }
-
-    private GuiItem createTransactionButton(Material material, String action, NamedTextColor color, Consumer<Player> handler) {
-        ItemStack button = new ItemStack(material);
-        ItemMeta meta = button.getItemMeta();
-        meta.displayName(Component.text(action, color));
-        meta.lore(createTransactionLore(action));
-        button.setItemMeta(meta);
-        return new GuiItem(button, event -> {
+    private void renderTransactionButton(int slot, boolean isBuy, Consumer<Player> handler) {
+        renderSlot(slot, viewModel.tradeButton(isBuy, selectedAmount), event -> {
             handler.accept((Player) event.getWhoClicked());
             refreshTransactionButtons();
         });
     }
 
-    private List<Component> createTransactionLore(String action) {
-        return List.of(
-                Component.text("➤ Unit Price: ", NamedTextColor.GRAY)
-                        .append(Component.text(moneyFormat.formatPrice(item.getCurrentPrice()), NamedTextColor.WHITE)),
-                Component.text("➤ Quantity: ", NamedTextColor.GRAY)
-                        .append(Component.text(selectedAmount, NamedTextColor.WHITE)),
-                createTotalComponent(action)
-        );
-    }
-
-    private Component createTotalComponent(String action) {
-        long total = calculateTotalPrice(action);
-        NamedTextColor color = "buy".equalsIgnoreCase(action) ? NamedTextColor.GREEN : NamedTextColor.GOLD;
-
-        return Component.text("➤ Total: ", NamedTextColor.GRAY)
-                .append(Component.text(moneyFormat.formatPrice(total), color));
-    }
-
+    /**
+     * The amount panes and back button are the same for every trade screen, so they are built
+     * once and find the clicking player's screen when used.
+     */
     private void addAmountControls() {
         for (int i = 0; i < AMOUNTS.length; i++) {
             gui.setItem(ADD_SLOTS[i], createAmountControl(AMOUNTS[i], true));
@@ -211,27 +146,39 @@ public class TradeGUI extends BaseGUI {
         NamedTextColor color = isAddition ? NamedTextColor.GREEN : NamedTextColor.RED;
         String action = isAddition ? "Add" : "Deduct";
 
-        return createButton(
+        // Captured alone so the cached button does not keep this screen alive
+        GuiManager manager = guiManager;
+        return ButtonFactory.createCachedButton(
+                "trade_" + action.toLowerCase() + "_" + amount,
                 material,
                 Component.text(action + " " + amount, color),
                 List.of(),
-                player -> handleAmountChange(amount, isAddition, player)
+                player -> {
+                    TradeGUI tradeGui = manager.getOpenTradeGui(player);
+                    if (tradeGui != null) tradeGui.handleAmountChange(amount, isAddition, player);
+                }
         );
     }
 
-    private void updateItemDisplay() {
-        ItemStack displayItem = new ItemStack(item.getMaterial());
-        ItemMeta meta = displayItem.getItemMeta();
-        meta.lore(createDetailedLore());
-        displayItem.setItemMeta(meta);
-        gui.updateItem(CENTER_SLOT, ItemBuilder.from(displayItem).asGuiItem());
+    private void addTradeBackButton() {
+        GuiManager manager = guiManager;
+        gui.setItem(BACK_BUTTON_SLOT, ButtonFactory.createCachedButton(
+                "trade_back_button",
+                Material.BARRIER,
+                Component.text("Back", NamedTextColor.RED),
+                List.of(),
+                player -> {
+                    TradeGUI tradeGui = manager.getOpenTradeGui(player);
+                    if (tradeGui != null) manager.returnToCategory(player, tradeGui.item.getCategory());
+                }
+        ));
     }
 
-    private void refreshAmountControls() {
-        for (int i = 0; i < AMOUNTS.length; i++) {
-            gui.updateItem(ADD_SLOTS[i], createAmountControl(AMOUNTS[i], true));
-            gui.updateItem(DEDUCT_SLOTS[i], createAmountControl(AMOUNTS[i], false));
-        }
+    private void updateItemDisplay() {
+        boolean ownedChanged = viewer != null
+                && plugin.getInventoryCountCache().count(viewer, item.getMaterial()) != lastDisplayOwned;
+        if (item.getVersion() == lastDisplayVersion && !ownedChanged) return;
+        renderItemDisplay();
     }
 
     private void handleAmountChange(int delta, boolean isAddition, Player player) {
@@ -240,62 +187,62 @@ public class TradeGUI extends BaseGUI {
         refreshTransactionButtons();
     }
 
-    private long calculateTotalPrice(String action) {
-        return marketMath.getTotalPriceOfItem(
-                item,
-                selectedAmount,
-                "buy".equalsIgnoreCase(action)
-        );
-    }
-
     private void handleBuy(Player player) {
-        TransactionHandler transactionHandler = new TransactionHandler(
-                moneyFormat,
-                player,
-                plugin.getEconomyManager(),
-                configManager,
-                marketMath,
-                stockHandler
-        );
-
-        if (transactionHandler.performBuyTransaction(itemName, selectedAmount)) {
-            playUiSound(player, "success");
-            guiManager.refreshCategoryItem(item.getCategory(), itemName);
-            gui.close(player);
-        } else {
-            playUiSound(player, "error");
-            player.sendMessage(Component.text("Failed to complete purchase!", NamedTextColor.RED));
-        }
+        TransactionRequest request = new TransactionRequest(viewModel.getItemName(), player.getUniqueId(), selectedAmount);
+        plugin.getTransactionHandler().performBuyTransaction(request)
+                .thenAccept(result -> handleResult(player, result, true));
     }
 
     private void handleSell(Player player) {
-        TransactionHandler transactionHandler = new TransactionHandler(
-                moneyFormat,
-                player,
-                plugin.getEconomyManager(),
-                configManager,
-                marketMath,
-                stockHandler
-        );
+        TransactionRequest request = new TransactionRequest(viewModel.getItemName(), player.getUniqueId(), selectedAmount);
+        plugin.getTransactionHandler().performSellTransaction(request)
+                .thenAccept(result -> handleResult(player, result, false));
+    }
 
-        if (transactionHandler.performSellTransaction(itemName, selectedAmount)) {
-            playUiSound(player, "success");
-            guiManager.refreshCategoryItem(item.getCategory(), itemName);
-            gui.close(player);
-        } else {
+    private void handleResult(Player player, TransactionResult result, boolean isBuy) {
+        if (!result.isSuccess()) {
             playUiSound(player, "error");
-            player.sendMessage(Component.text("Failed to complete sale!", NamedTextColor.RED));
+            player.sendMessage(Component.text(describeFailure(result, isBuy), NamedTextColor.RED));
+            return;
+        }
+
+        if (result.isPartial()) {
+            player.sendMessage(Component.text("Only %d of the %d selected could be %s."
+                    .formatted(result.amount(), result.requestedAmount(), isBuy ? "bought" : "sold"), NamedTextColor.GOLD));
         }
+        String message = isBuy
+                ? "Successfully purchased %d %s for %s".formatted(
+                        result.amount(), item.getName(), moneyFormat.formatPrice(result.totalPrice()))
+                : "Successfully sold %d %s for %s. Tax of %s deducted.".formatted(
+                        result.amount(), item.getName(), moneyFormat.formatPrice(result.totalPrice()),
+                        moneyFormat.formatPrice(result.tax()));
+        player.sendMessage(Component.text(message, NamedTextColor.GREEN));
+        playUiSound(player, "success");
+        gui.close(player);
     }
 
+    private String describeFailure(TransactionResult result, boolean isBuy) {
+        return switch (result.status()) {
+            case INVALID_AMOUNT -> "Select an amount first";
+            case ITEM_NOT_FOUND -> "Item not found!";
+            case PLAYER_OFFLINE -> "You must be online to trade";
+            case OUT_OF_STOCK -> "There is no stock available";
+            case INVENTORY_FULL -> "Your inventory is full";
+            case NOTHING_TO_SELL -> "You have no %s to sell".formatted(item.getName());
+            case PRICE_TOO_HIGH -> "The price of %d %s is too high to quote. Try a smaller amount."
+                    .formatted(result.requestedAmount(), item.getName());
+            case PAYMENT_FAILED -> isBuy ? "Payment failed; the items were taken back" : "Payment failed; your items were returned";
+            case ERROR, SUCCESS -> isBuy ? "Failed to complete purchase!" : "Failed to complete sale!";
+        };
+    }
+
+    /**
+     * The view model hands back the same stack while the item and amount are unchanged,
+     * so unchanged buttons are skipped without comparing their lore.
+     */
     private void refreshTransactionButtons() {
-        if (lastRefreshAmount != selectedAmount) {
-            lastRefreshAmount = selectedAmount;
-            gui.updateItem(BUY_BUTTON_SLOT, createTransactionButton(
-                    Material.SLIME_BLOCK, "Buy", NamedTextColor.GREEN, this::handleBuy));
-            gui.updateItem(SELL_BUTTON_SLOT, createTransactionButton(
-                    Material.HONEY_BLOCK, "Sell", NamedTextColor.GOLD, this::handleSell));
-        }
+        renderTransactionButton(BUY_BUTTON_SLOT, true, this::handleBuy);
+        renderTransactionButton(SELL_BUTTON_SLOT, false, this::handleSell);
     }
 
     protected void resetAmount() {
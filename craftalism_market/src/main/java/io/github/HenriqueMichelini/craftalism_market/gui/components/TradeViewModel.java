@@ -0,0 +1,66 @@
+package io.github.HenriqueMichelini.craftalism_market.gui.components;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import net.kyori.adventure.text.Component;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The item-dependent half of the trade screen, shared by everyone trading the same item.
+ * <p>
+ * Price, stock, history and quotes are rendered once per item state through the
+ * {@link MarketItemRenderer}; each player's {@link TradeGUI} only overlays its selected
+ * amount and owned count on top. Main thread only.
+ */
+public class TradeViewModel {
+    private final MarketItem item;
+    private final String itemName;
+    private final MarketItemRenderer renderer;
+    private final Set<TradeGUI> viewers = new LinkedHashSet<>();
+
+    public TradeViewModel(MarketItem item, String itemName, MarketItemRenderer renderer) {
+        this.item = item;
+        this.itemName = itemName;
+        this.renderer = renderer;
+    }
+
+    public MarketItem getItem() {
+        return item;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public List<Component> detailLore() {
+        return renderer.detailLore(item);
+    }
+
+    public ItemStack tradeButton(boolean isBuy, int quantity) {
+        return renderer.tradeButton(item, isBuy, quantity);
+    }
+
+    public void addViewer(TradeGUI viewer) {
+        viewers.add(viewer);
+    }
+
+    /**
+     * @return true if no one is trading the item any more
+     */
+    public boolean removeViewer(TradeGUI viewer) {
+        viewers.remove(viewer);
+        return viewers.isEmpty();
+    }
+
+    /**
+     * Lets every open trade screen pick up the item's new state. The first one to render
+     * a part fills the shared cache; the rest only apply their own overlay.
+     */
+    public void refresh() {
+        new ArrayList<>(viewers).forEach(TradeGUI::refresh);
+    }
+}
@@ -19,48 +19,63 @@ public class GuiManager implements StockUpdateListener {
     // Region: Dependencies
     private final ConfigManager configManager;
     private final CraftalismMarket plugin;
-    private final MarketMath marketMath;
     private final StockHandler stockHandler;
 
     // Region: GUI Components
     private MarketGUI marketGui;
     private final Map<String, CategoryGUI> categoryGuis = new HashMap<>();
-    private final Map<String, Set<TradeGUI>> openTradeGuis = new HashMap<>();
+    // Indexed by MarketItem#getIndexId
+    private final TradeViewModel[] tradeViews;
+    private final Map<UUID, TradeGUI> openTradeGuis = new HashMap<>();
     private final MoneyFormat moneyFormat;
+    private final MarketItemRenderer renderer;
 
 
     @Override
     public void onStockUpdated(MarketItem item) {
-        String itemName = item.getMaterial().name().toLowerCase();
-
         // Update category GUI
-        refreshCategoryItem(item.getCategory(), itemName);
+        refreshCategoryItem(item);
 
         // Update open trade GUIs
-        if (openTradeGuis.containsKey(itemName)) {
-            new ArrayList<>(openTradeGuis.get(itemName)).forEach(TradeGUI::refresh);
+        TradeViewModel view = tradeViews[item.getIndexId()];
+        if (view != null) view.refresh();
+    }
+
+    @Override
+    public void onStocksUpdated(Collection<MarketItem> items) {
+        for (MarketItem item : items) {
+            onStockUpdated(item);
         }
     }
 
-    public void registerTradeGui(String itemName, TradeGUI gui) {
-        openTradeGuis.computeIfAbsent(itemName, k -> new HashSet<>()).add(gui);
+    public void registerTradeGui(Player player, TradeGUI gui) {
+        openTradeGuis.put(player.getUniqueId(), gui);
+        gui.getViewModel().addViewer(gui);
     }
 
-    public void unregisterTradeGui(String itemName, TradeGUI gui) {
-        if (openTradeGuis.containsKey(itemName)) {
-            openTradeGuis.get(itemName).remove(gui);
-            if (openTradeGuis.get(itemName).isEmpty()) {
-                openTradeGuis.remove(itemName);
-            }
+    public void unregisterTradeGui(Player player, TradeGUI gui) {
+        openTradeGuis.remove(player.getUniqueId(), gui);
+        TradeViewModel view = gui.getViewModel();
+        int id = view.getItem().getIndexId();
+        if (view.removeViewer(gui) && tradeViews[id] == view) {
+            tradeViews[id] = null;
         }
     }
 
+    /**
+     * @return the trade screen the player has open, or null
+     */
+    public TradeGUI getOpenTradeGui(Player player) {
+        return openTradeGuis.get(player.getUniqueId());
+    }
+
     public GuiManager(ConfigManager configManager, CraftalismMarket plugin, MarketMath marketMath, StockHandler stockHandler, MoneyFormat moneyFormat) {
         this.configManager = configManager;
         this.plugin = plugin;
-        this.marketMath = marketMath;
         this.stockHandler = stockHandler;
         this.moneyFormat = moneyFormat;
+        this.renderer = new MarketItemRenderer(marketMath, moneyFormat);
+        this.tradeViews = new TradeViewModel[configManager.getIndex().size()];
         stockHandler.addStockUpdateListener(this);
         initializeGUIs();
     }
@@ -82,7 +97,8 @@ public class GuiManager implements StockUpdateListener {
                         configManager,
                         this::handleItemSelection,
                         this::openMarket,
-                        moneyFormat
+                        stockHandler,
+                        renderer
                 ))
         );
     }
@@ -102,16 +118,14 @@ public class GuiManager implements StockUpdateListener {
         }
     }
 
-    private void handleItemSelection(Player player, String itemName) {
-        new TradeGUI(
-                itemName,
-                plugin,
-                configManager,
-                marketMath,
-                p -> returnToCategory(p, getItemCategory(itemName)),
-                this,
-                stockHandler,
-                moneyFormat).open(player);
+    private void handleItemSelection(Player player, MarketItem item) {
+        stockHandler.settle(item);
+        TradeViewModel view = tradeViews[item.getIndexId()];
+        if (view == null) {
+            view = new TradeViewModel(item, configManager.getIndex().keyOf(item), renderer);
+            tradeViews[item.getIndexId()] = view;
+        }
+        new TradeGUI(view, plugin, this, moneyFormat).open(player);
     }
 
     // Region: Navigation Helpers
@@ -126,14 +140,10 @@ public class GuiManager implements StockUpdateListener {
         }, 1L);
     }
 
-    public void refreshCategoryItem(String category, String itemName) {
-        CategoryGUI categoryGui = categoryGuis.get(category);
+    public void refreshCategoryItem(MarketItem item) {
+        CategoryGUI categoryGui = categoryGuis.get(item.getCategory());
         if (categoryGui != null) {
-            categoryGui.refreshItem(itemName);
+            categoryGui.refreshItem(item);
         }
     }
-
-    private String getItemCategory(String itemName) {
-        return configManager.getItems().get(itemName).getCategory();
-    }
 }
\ No newline at end of file
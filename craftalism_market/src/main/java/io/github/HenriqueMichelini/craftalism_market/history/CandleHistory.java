@@ -0,0 +1,38 @@
+package io.github.HenriqueMichelini.craftalism_market.history;
+
+/**
+ * Per-item candles at every {@link Resolution}. A series is only allocated once
+ * the item records its first price.
+ */
+public class CandleHistory {
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final CandleSeries[] series = new CandleSeries[RESOLUTIONS.length];
+
+    /**
+     * Feeds a trade or regeneration price into every resolution.
+     *
+     * @param volume units traded, or 0 for price moves that are not trades
+     */
+    public void record(long timestamp, long price, long volume) {
+        for (Resolution resolution : RESOLUTIONS) {
+            getOrCreate(resolution).record(timestamp, price, volume);
+        }
+    }
+
+    /**
+     * @return the series at the given resolution, or null if nothing was recorded yet
+     */
+    public CandleSeries getSeries(Resolution resolution) {
+        return series[resolution.ordinal()];
+    }
+
+    CandleSeries getOrCreate(Resolution resolution) {
+        CandleSeries existing = series[resolution.ordinal()];
+        if (existing == null) {
+            existing = new CandleSeries(resolution);
+            series[resolution.ordinal()] = existing;
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.HenriqueMichelini.craftalism_market.history;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Open/high/low/close/volume candles at one resolution, held in parallel primitive rings.
+ * <p>
+ * Candles are indexed oldest first. Storage grows with the number of candles up to the
+ * resolution's capacity, after which the oldest candle is overwritten. Not thread-safe;
+ * candles are recorded on the main thread.
+ */
+public class CandleSeries {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Resolution resolution;
+    private long[] starts;
+    private long[] opens;
+    private long[] highs;
+    private long[] lows;
+    private long[] closes;
+    private long[] volumes;
+    private int oldest;
+    private int size;
+
+    public CandleSeries(Resolution resolution) {
+        this.resolution = Objects.requireNonNull(resolution, "Resolution cannot be null");
+        int initial = Math.min(INITIAL_CAPACITY, resolution.getCapacity());
+        this.starts = new long[initial];
+        this.opens = new long[initial];
+        this.highs = new long[initial];
+        this.lows = new long[initial];
+        this.closes = new long[initial];
+        this.volumes = new long[initial];
+    }
+
+    /**
+     * Folds a price into the candle covering {@code timestamp}. A timestamp earlier than
+     * the latest candle (e.g. after a clock adjustment) is folded into the latest candle.
+     */
+    public void record(long timestamp, long price, long volume) {
+        long start = resolution.bucketStart(timestamp);
+
+        if (size > 0) {
+            int latest = physical(size - 1);
+            if (start <= starts[latest]) {
+                if (price > highs[latest]) highs[latest] = price;
+                if (price < lows[latest]) lows[latest] = price;
+                closes[latest] = price;
+                volumes[latest] += volume;
+                return;
+            }
+        }
+        append(start, price, price, price, price, volume);
+    }
+
+    /**
+     * Appends a complete candle; used when restoring persisted series.
+     */
+    void append(long start, long open, long high, long low, long close, long volume) {
+        int slot;
+        if (size < resolution.getCapacity()) {
+            if (size == starts.length) grow();
+            slot = physical(size++);
+        } else {
+            slot = oldest;
+            oldest = (oldest + 1) % starts.length;
+        }
+        starts[slot] = start;
+        opens[slot] = open;
+        highs[slot] = high;
+        lows[slot] = low;
+        closes[slot] = close;
+        volumes[slot] = volume;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long startTime(int index) {
+        return starts[checked(index)];
+    }
+
+    public long open(int index) {
+        return opens[checked(index)];
+    }
+
+    public long high(int index) {
+        return highs[checked(index)];
+    }
+
+    public long low(int index) {
+        return lows[checked(index)];
+    }
+
+    public long close(int index) {
+        return closes[checked(index)];
+    }
+
+    public long volume(int index) {
+        return volumes[checked(index)];
+    }
+
+    private int checked(int index) {
+        return physical(Objects.checkIndex(index, size));
+    }
+
+    private int physical(int index) {
+        return (oldest + index) % starts.length;
+    }
+
+    // The ring only wraps once it reaches full capacity, so live candles are contiguous from 0 here
+    private void grow() {
+        int newCapacity = Math.min(starts.length * 2, resolution.getCapacity());
+        starts = Arrays.copyOf(starts, newCapacity);
+        opens = Arrays.copyOf(opens, newCapacity);
+        highs = Arrays.copyOf(highs, newCapacity);
+        lows = Arrays.copyOf(lows, newCapacity);
+        closes = Arrays.copyOf(closes, newCapacity);
+        volumes = Arrays.copyOf(volumes, newCapacity);
+    }
+}
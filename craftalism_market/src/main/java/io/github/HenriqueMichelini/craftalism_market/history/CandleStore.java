@@ -0,0 +1,182 @@
+package io.github.HenriqueMichelini.craftalism_market.history;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.storage.AtomicFiles;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists item candles to a compact binary file.
+ * <p>
+ * Each candle is stored as zig-zag varints relative to its neighbours: the bucket index
+ * relative to the previous candle, the open relative to the previous close, and the
+ * high, low and close relative to the open, so typical candles take a handful of bytes.
+ * <p>
+ * Every item's candles are kept encoded in memory. {@link #capture} re-encodes a changed
+ * item on the main thread, so {@link #write} can assemble the file from the encoded
+ * blobs on any thread.
+ */
+public class CandleStore {
+    private static final Logger LOGGER = Logger.getLogger(CandleStore.class.getName());
+    private static final int MAGIC = 0x434E444C; // "CNDL"
+    private static final int VERSION = 1;
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final File file;
+    private final Map<String, byte[]> encoded = new HashMap<>();
+
+    public CandleStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Restores candles into the matching items; unknown items are skipped.
+     */
+    public void load(Map<String, MarketItem> items) {
+        encoded.clear();
+        if (file.exists()) {
+            read(items);
+        }
+        items.forEach((key, item) -> capture(key, item.getCandles()));
+    }
+
+    /**
+     * Re-encodes one item's candles for the next write. Main thread only.
+     */
+    public void capture(String key, CandleHistory history) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            writeHistory(out, history);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        encoded.put(key, buffer.toByteArray());
+    }
+
+    /**
+     * @return a copy of the encoded candles of every item, safe to hand to {@link #write}
+     */
+    public Map<String, byte[]> snapshot() {
+        return new HashMap<>(encoded);
+    }
+
+    /**
+     * Writes a snapshot to disk, replacing the previous file. Safe to call off the main thread.
+     *
+     * @return true if the file was written
+     */
+    public boolean write(Map<String, byte[]> snapshot) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, byte[]> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.write(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            AtomicFiles.write(file.toPath(), buffer.toByteArray());
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to save price candles", e);
+            return false;
+        }
+    }
+
+    private void read(Map<String, MarketItem> items) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                LOGGER.warning("Ignoring unrecognised price candle file " + file.getName());
+                return;
+            }
+            int itemCount = in.readInt();
+            for (int i = 0; i < itemCount; i++) {
+                MarketItem item = items.get(in.readUTF());
+                readHistory(in, item == null ? new CandleHistory() : item.getCandles());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to load price candles", e);
+        }
+    }
+
+    private void writeHistory(DataOutputStream out, CandleHistory history) throws IOException {
+        int present = 0;
+        for (Resolution resolution : RESOLUTIONS) {
+            if (history.getSeries(resolution) != null) present++;
+        }
+        out.writeByte(present);
+
+        for (Resolution resolution : RESOLUTIONS) {
+            CandleSeries series = history.getSeries(resolution);
+            if (series == null) continue;
+
+            out.writeByte(resolution.ordinal());
+            writeVarLong(out, series.size());
+            long previousBucket = 0;
+            long previousClose = 0;
+            for (int i = 0; i < series.size(); i++) {
+                long bucket = series.startTime(i) / resolution.getBucketMillis();
+                long open = series.open(i);
+                writeVarLong(out, bucket - previousBucket);
+                writeVarLong(out, open - previousClose);
+                writeVarLong(out, series.high(i) - open);
+                writeVarLong(out, series.low(i) - open);
+                writeVarLong(out, series.close(i) - open);
+                writeVarLong(out, series.volume(i));
+                previousBucket = bucket;
+                previousClose = series.close(i);
+            }
+        }
+    }
+
+    private void readHistory(DataInputStream in, CandleHistory history) throws IOException {
+        int present = in.readUnsignedByte();
+        for (int s = 0; s < present; s++) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= RESOLUTIONS.length) throw new IOException("Unknown candle resolution " + ordinal);
+            Resolution resolution = RESOLUTIONS[ordinal];
+            CandleSeries series = history.getOrCreate(resolution);
+
+            long count = readVarLong(in);
+            long bucket = 0;
+            long close = 0;
+            for (long i = 0; i < count; i++) {
+                bucket += readVarLong(in);
+                long open = close + readVarLong(in);
+                long high = open + readVarLong(in);
+                long low = open + readVarLong(in);
+                close = open + readVarLong(in);
+                long volume = readVarLong(in);
+                series.append(bucket * resolution.getBucketMillis(), open, high, low, close, volume);
+            }
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+        throw new IOException("Malformed varint in candle file");
+    }
+}
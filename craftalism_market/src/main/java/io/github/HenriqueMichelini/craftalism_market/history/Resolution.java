@@ -0,0 +1,36 @@
+package io.github.HenriqueMichelini.craftalism_market.history;
+
+/**
+ * Candle widths kept for every item, each with its own retention.
+ */
+public enum Resolution {
+    MINUTE(60_000L, 120),
+    HOUR(3_600_000L, 168),
+    DAY(86_400_000L, 365);
+
+    private final long bucketMillis;
+    private final int capacity;
+
+    Resolution(long bucketMillis, int capacity) {
+        this.bucketMillis = bucketMillis;
+        this.capacity = capacity;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * @return the number of candles retained at this resolution
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the start of the bucket containing the timestamp
+     */
+    public long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.HenriqueMichelini.craftalism_market.logic;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-player material counts of the storage slots, so "how many do I own" is O(1).
+ * <p>
+ * A player's counts are scanned once and then kept up to date from events. Clicks on storage
+ * slots, pickups and drops apply their exact delta. Events that name the material but not the
+ * amount (shift-clicks, drags, placing, breaking, the plugin's own trades) mark only that
+ * material stale; it is recounted on its next lookup. Events whose effect cannot be attributed
+ * (crafting, hotbar swaps, consuming, death) drop the player's whole histogram. Changes no event
+ * reports, such as other plugins' commands, are picked up when a trade screen opens, since it
+ * recounts its item. Only materials the player holds are stored. Main thread only.
+ */
+public class InventoryCountCache implements Listener {
+    // Player inventory slots 0-35 are the storage slots; armor and off hand follow
+    private static final int STORAGE_SLOTS = 36;
+
+    private final Map<UUID, Counts> players = new HashMap<>();
+    // Tick of each player's last inventory click that drops an item; its drop event is already counted
+    private final Map<UUID, Integer> clickDrops = new HashMap<>();
+
+    /**
+     * @return how many of the material sit in the player's storage slots
+     */
+    public int count(@NotNull Player player, @NotNull Material material) {
+        Counts counts = players.get(player.getUniqueId());
+        if (counts == null) {
+            counts = scan(player);
+            players.put(player.getUniqueId(), counts);
+        }
+
+        if (counts.stale.remove(material)) {
+            int count = InventoryHandler.countItems(player, material);
+            if (count > 0) {
+                counts.values.put(material, count);
+            } else {
+                counts.values.remove(material);
+            }
+        }
+        return counts.values.getOrDefault(material, 0);
+    }
+
+    /**
+     * Marks one material stale for the player; the next lookup recounts it.
+     */
+    public void invalidate(@NotNull HumanEntity player, Material material) {
+        Counts counts = players.get(player.getUniqueId());
+        if (counts != null && material != null) counts.stale.add(material);
+    }
+
+    /**
+     * Drops the player's whole histogram; the next lookup rescans the inventory.
+     */
+    public void invalidateAll(@NotNull HumanEntity player) {
+        players.remove(player.getUniqueId());
+    }
+
+    /**
+     * Adds a known change to the player's count of the material.
+     */
+    private void adjust(HumanEntity player, Material material, int delta) {
+        Counts counts = players.get(player.getUniqueId());
+        if (counts == null || material == null || delta == 0 || counts.stale.contains(material)) return;
+
+        int count = counts.values.getOrDefault(material, 0) + delta;
+        if (count > 0) {
+            counts.values.put(material, count);
+        } else {
+            counts.values.remove(material);
+            // A negative count means an earlier change was missed
+            if (count < 0) counts.stale.add(material);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+
+        ItemStack stack = event.getItem().getItemStack();
+        // Pickups top up a matching off hand stack before the storage slots
+        ItemStack offHand = player.getInventory().getItemInOffHand();
+        if (offHand != null && offHand.isSimilar(stack) && offHand.getAmount() < offHand.getMaxStackSize()) {
+            invalidate(player, stack.getType());
+            return;
+        }
+        adjust(player, stack.getType(), stack.getAmount() - event.getRemaining());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDrop(PlayerDropItemEvent event) {
+        Player player = event.getPlayer();
+        ItemStack stack = event.getItemDrop().getItemStack();
+        Integer clickTick = clickDrops.remove(player.getUniqueId());
+        boolean countedByClick = clickTick != null && clickTick == Bukkit.getCurrentTick();
+
+        if (event.isCancelled()) {
+            // The item goes back into the inventory, wherever it fits
+            if (countedByClick) invalidate(player, stack.getType());
+            return;
+        }
+        if (!countedByClick) adjust(player, stack.getType(), -stack.getAmount());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClick(InventoryClickEvent event) {
+        HumanEntity player = event.getWhoClicked();
+        InventoryAction action = event.getAction();
+        // Crafting consumes a whole grid; hotbar swaps move a slot the event does not name
+        if (event instanceof CraftItemEvent || action == InventoryAction.HOTBAR_SWAP
+                || action == InventoryAction.HOTBAR_MOVE_AND_READD || action == InventoryAction.UNKNOWN) {
+            invalidateAll(player);
+            return;
+        }
+
+        ItemStack current = event.getCurrentItem();
+        ItemStack cursor = event.getCursor();
+        boolean storageSlot = event.getClickedInventory() == player.getInventory() && event.getSlot() < STORAGE_SLOTS;
+        switch (action) {
+            case NOTHING -> { }
+            case DROP_ALL_CURSOR, DROP_ONE_CURSOR -> clickDrops.put(player.getUniqueId(), Bukkit.getCurrentTick());
+            case DROP_ALL_SLOT, DROP_ONE_SLOT -> {
+                clickDrops.put(player.getUniqueId(), Bukkit.getCurrentTick());
+                if (storageSlot) adjust(player, typeOf(current), action == InventoryAction.DROP_ALL_SLOT ? -current.getAmount() : -1);
+            }
+            case PICKUP_ALL, PICKUP_HALF, PICKUP_ONE -> {
+                if (!storageSlot) return;
+                int amount = current.getAmount();
+                int taken = switch (action) {
+                    case PICKUP_ALL -> amount;
+                    case PICKUP_HALF -> (amount + 1) / 2;
+                    default -> 1;
+                };
+                adjust(player, typeOf(current), -taken);
+            }
+            case PLACE_ALL, PLACE_ONE -> {
+                if (storageSlot) adjust(player, typeOf(cursor), action == InventoryAction.PLACE_ALL ? cursor.getAmount() : 1);
+            }
+            case PLACE_SOME -> {
+                // Fills the clicked stack up to its maximum
+                if (storageSlot) adjust(player, typeOf(cursor), current.getMaxStackSize() - current.getAmount());
+            }
+            case SWAP_WITH_CURSOR -> {
+                if (!storageSlot) return;
+                adjust(player, typeOf(current), -current.getAmount());
+                adjust(player, typeOf(cursor), cursor.getAmount());
+            }
+            default -> {
+                // Shift-clicks and collecting move an amount that depends on the other slots
+                invalidate(player, typeOf(current));
+                invalidate(player, typeOf(cursor));
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrag(InventoryDragEvent event) {
+        invalidate(event.getWhoClicked(), typeOf(event.getOldCursor()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getPlayer(), typeOf(event.getItemInHand()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        invalidate(event.getPlayer(), typeOf(event.getBrokenItem()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        invalidate(event.getPlayer(), typeOf(event.getMainHandItem()));
+        invalidate(event.getPlayer(), typeOf(event.getOffHandItem()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        // Consuming may leave a container (bowl, bottle) behind
+        invalidateAll(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(PlayerDeathEvent event) {
+        invalidateAll(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        invalidateAll(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        invalidateAll(event.getPlayer());
+        clickDrops.remove(event.getPlayer().getUniqueId());
+    }
+
+    private static Counts scan(Player player) {
+        Counts counts = new Counts();
+        for (ItemStack stack : player.getInventory().getStorageContents()) {
+            if (stack != null && !stack.getType().isAir()) counts.values.merge(stack.getType(), stack.getAmount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    private static Material typeOf(ItemStack stack) {
+        return stack == null || stack.getType().isAir() ? null : stack.getType();
+    }
+
+    private static final class Counts {
+        // Materials the player holds none of are absent
+        private final Map<Material, Integer> values = new HashMap<>();
+        private final Set<Material> stale = new HashSet<>();
+    }
+}
@@ -2,17 +2,17 @@ package io.github.HenriqueMichelini.craftalism_market.logic;
 
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Utility class for handling player inventory operations with thread safety and null-safety.
+ * Callers invalidate the {@link InventoryCountCache} for the materials they change.
  */
 public final class InventoryHandler {
 
@@ -21,65 +21,46 @@ public final class InventoryHandler {
     }
 
     /**
-     * Counts the total amount of a specific material in a player's inventory.
+     * Counts the total amount of a specific material in a player's storage slots.
      */
     public static int countItems(@NotNull Player player, @NotNull Material material) {
         validateParameters(player, material, 1);
-        return Arrays.stream(player.getInventory().getContents())
-                .filter(Objects::nonNull)
-                .filter(item -> item.getType() == material)
-                .mapToInt(ItemStack::getAmount)
-                .sum();
+        int count = 0;
+        for (ItemStack stack : player.getInventory().getStorageContents()) {
+            if (stack != null && stack.getType() == material) count += stack.getAmount();
+        }
+        return count;
     }
 
     /**
      * Removes a specific amount of a material from a player's inventory.
-     * @return true if the full amount was removed, false otherwise
+     * @return true if the full amount was removed; nothing is removed otherwise
      */
     public static boolean removeItemFromPlayer(@NotNull Player player, @NotNull Material material, int amount) {
         validateParameters(player, material, amount);
 
-        Inventory inventory = player.getInventory();
-        int remaining = amount;
-
-        for (int i = 0; i < inventory.getSize() && remaining > 0; i++) {
-            ItemStack stack = inventory.getItem(i);
-            if (stack != null && stack.getType() == material) {
-                int stackAmount = stack.getAmount();
-
-                if (stackAmount <= remaining) {
-                    inventory.setItem(i, null);
-                    remaining -= stackAmount;
-                } else {
-                    stack.setAmount(stackAmount - remaining);
-                    remaining = 0;
-                }
-            }
-        }
-        return remaining == 0;
+        InventoryPlan plan = InventoryPlan.scan(player.getInventory());
+        if (plan.count(material) < amount) return false;
+
+        plan.planRemove(material, amount);
+        plan.apply();
+        return true;
     }
 
     /**
      * Adds items to a player's inventory, dropping overflow naturally in the world.
+     * @return the amount that went into the inventory
      */
     public static int addItemToPlayer(@NotNull Player player, @NotNull Material material, int amount) {
         validateParameters(player, material, amount);
 
-        Inventory inventory = player.getInventory();
-        ItemStack[] items = createItemStacks(material, amount);
-        int totalAdded = 0;
-
-        for (ItemStack item : items) {
-            Map<Integer, ItemStack> leftover = inventory.addItem(item.clone()); // Clone to avoid modifying original
-            int added = item.getAmount();
-            if (!leftover.isEmpty()) {
-                added -= leftover.values().iterator().next().getAmount();
-                dropLeftoverItems(player, leftover.values());
-            }
-            totalAdded += added;
-        }
+        InventoryPlan plan = InventoryPlan.scan(player.getInventory());
+        int added = plan.planAdd(material, amount);
+        plan.apply();
 
-        return totalAdded;
+        int overflow = amount - added;
+        if (overflow > 0) dropLeftoverItems(player, List.of(createItemStacks(material, overflow)));
+        return added;
     }
 
     private static void validateParameters(Player player, Material material, int amount) {
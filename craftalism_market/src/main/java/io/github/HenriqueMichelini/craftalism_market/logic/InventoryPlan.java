@@ -0,0 +1,259 @@
+package io.github.HenriqueMichelini.craftalism_market.logic;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Plans inventory changes against one scan of the storage slots, then writes them in one batch.
+ * <p>
+ * {@link #scan} reads every slot once into a count and free-capacity histogram of the
+ * materials present, so a scan costs O(slots) whatever the number of materials.
+ * Planned removals and additions only touch the plan's own slot arrays, so a trade can be
+ * checked and sized before anything changes; {@link #apply} then writes each touched slot once.
+ * Additions follow {@link Inventory#addItem} order: matching partial stacks first, then empty
+ * slots. Not thread-safe; scan, plan and apply on the main thread without yielding in between.
+ * Callers that apply a plan to a player's inventory invalidate the {@link InventoryCountCache}.
+ */
+public final class InventoryPlan {
+    private final Inventory inventory;
+    private final ItemStack[] stacks;
+    private final Material[] types;
+    private final int[] amounts;
+    private final boolean[] touched;
+    private final Map<Material, Totals> byMaterial = new LinkedHashMap<>();
+    private int emptySlots;
+
+    private InventoryPlan(Inventory inventory, ItemStack[] stacks) {
+        this.inventory = inventory;
+        this.stacks = stacks;
+        this.types = new Material[stacks.length];
+        this.amounts = new int[stacks.length];
+        this.touched = new boolean[stacks.length];
+    }
+
+    /**
+     * Reads the inventory's storage slots once.
+     */
+    public static InventoryPlan scan(@NotNull Inventory inventory) {
+        Objects.requireNonNull(inventory, "Inventory cannot be null");
+        InventoryPlan plan = new InventoryPlan(inventory, inventory.getStorageContents());
+
+        for (int slot = 0; slot < plan.stacks.length; slot++) {
+            ItemStack stack = plan.stacks[slot];
+            if (stack == null || stack.getType().isAir() || stack.getAmount() <= 0) {
+                plan.stacks[slot] = null;
+                plan.emptySlots++;
+                continue;
+            }
+
+            Material type = stack.getType();
+            int amount = stack.getAmount();
+            plan.types[slot] = type;
+            plan.amounts[slot] = amount;
+            Totals totals = plan.totalsOf(type);
+            totals.count += amount;
+            if (canMerge(stack)) {
+                totals.plainCount += amount;
+                totals.partialSpace += Math.max(0, type.getMaxStackSize() - amount);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return the planned amount of the material, including planned changes
+     */
+    public int count(@NotNull Material material) {
+        Totals totals = byMaterial.get(material);
+        return totals == null ? 0 : totals.count;
+    }
+
+    /**
+     * @return the planned amount of the material held in stacks without metadata
+     */
+    public int plainCount(@NotNull Material material) {
+        Totals totals = byMaterial.get(material);
+        return totals == null ? 0 : totals.plainCount;
+    }
+
+    /**
+     * @return how many more of the material fit, including planned changes
+     */
+    public int freeCapacity(@NotNull Material material) {
+        Totals totals = byMaterial.get(material);
+        int partialSpace = totals == null ? 0 : totals.partialSpace;
+        long capacity = partialSpace + (long) emptySlots * material.getMaxStackSize();
+        return (int) Math.min(Integer.MAX_VALUE, capacity);
+    }
+
+    /**
+     * Every material present and its planned amount, in slot order.
+     */
+    public Map<Material, Integer> counts() {
+        Map<Material, Integer> histogram = new LinkedHashMap<>();
+        byMaterial.forEach((material, totals) -> {
+            if (totals.count > 0) histogram.put(material, totals.count);
+        });
+        return histogram;
+    }
+
+    /**
+     * Every material held in stacks without metadata and its planned amount, in slot order.
+     * Named, enchanted, damaged or filled items are left out.
+     */
+    public Map<Material, Integer> plainCounts() {
+        Map<Material, Integer> histogram = new LinkedHashMap<>();
+        byMaterial.forEach((material, totals) -> {
+            if (totals.plainCount > 0) histogram.put(material, totals.plainCount);
+        });
+        return histogram;
+    }
+
+    /**
+     * Plans taking up to {@code amount} of the material, first slots first.
+     *
+     * @return the amount that will be removed
+     */
+    public int planRemove(@NotNull Material material, int amount) {
+        return planRemove(material, amount, false);
+    }
+
+    /**
+     * Plans taking up to {@code amount} of the material from stacks without metadata only.
+     *
+     * @return the amount that will be removed
+     */
+    public int planRemovePlain(@NotNull Material material, int amount) {
+        return planRemove(material, amount, true);
+    }
+
+    private int planRemove(Material material, int amount, boolean plainOnly) {
+        validate(material, amount);
+        Totals totals = byMaterial.get(material);
+        if (totals == null) return 0;
+        int remaining = Math.min(amount, plainOnly ? totals.plainCount : totals.count);
+        int removed = remaining;
+
+        for (int slot = 0; slot < amounts.length && remaining > 0; slot++) {
+            if (types[slot] != material || amounts[slot] == 0) continue;
+
+            boolean wasMergeable = stacks[slot] == null || canMerge(stacks[slot]);
+            if (plainOnly && !wasMergeable) continue;
+
+            int taken = Math.min(amounts[slot], remaining);
+            if (wasMergeable) totals.plainCount -= taken;
+            amounts[slot] -= taken;
+            remaining -= taken;
+            touched[slot] = true;
+
+            if (amounts[slot] == 0) {
+                if (wasMergeable) totals.partialSpace -= material.getMaxStackSize() - taken;
+                types[slot] = null;
+                emptySlots++;
+            } else if (wasMergeable) {
+                totals.partialSpace += taken;
+            }
+        }
+        totals.count -= removed;
+        return removed;
+    }
+
+    /**
+     * Plans adding up to {@code amount} of the material, topping up partial stacks before
+     * filling empty slots.
+     *
+     * @return the amount that fits; the rest is not planned
+     */
+    public int planAdd(@NotNull Material material, int amount) {
+        validate(material, amount);
+        int maxStackSize = material.getMaxStackSize();
+        int remaining = Math.min(amount, freeCapacity(material));
+        int added = remaining;
+        Totals totals = totalsOf(material);
+
+        for (int slot = 0; slot < amounts.length && remaining > 0 && totals.partialSpace > 0; slot++) {
+            if (types[slot] != material || amounts[slot] >= maxStackSize) continue;
+            if (stacks[slot] != null && !canMerge(stacks[slot])) continue;
+
+            int put = Math.min(maxStackSize - amounts[slot], remaining);
+            amounts[slot] += put;
+            remaining -= put;
+            totals.partialSpace -= put;
+            touched[slot] = true;
+        }
+
+        for (int slot = 0; slot < amounts.length && remaining > 0; slot++) {
+            if (types[slot] != null) continue;
+
+            int put = Math.min(maxStackSize, remaining);
+            types[slot] = material;
+            amounts[slot] = put;
+            stacks[slot] = null;
+            remaining -= put;
+            totals.partialSpace += maxStackSize - put;
+            emptySlots--;
+            touched[slot] = true;
+        }
+
+        totals.count += added;
+        totals.plainCount += added;
+        return added;
+    }
+
+    /**
+     * Writes every planned change to the inventory, one slot write per touched slot.
+     */
+    public void apply() {
+        for (int slot = 0; slot < touched.length; slot++) {
+            if (!touched[slot]) continue;
+            touched[slot] = false;
+
+            if (types[slot] == null || amounts[slot] == 0) {
+                stacks[slot] = null;
+                inventory.setItem(slot, null);
+                continue;
+            }
+
+            ItemStack stack = stacks[slot];
+            if (stack == null || stack.getType() != types[slot]) {
+                stack = new ItemStack(types[slot], amounts[slot]);
+                stacks[slot] = stack;
+            } else {
+                stack.setAmount(amounts[slot]);
+            }
+            inventory.setItem(slot, stack);
+        }
+    }
+
+    private Totals totalsOf(Material material) {
+        return byMaterial.computeIfAbsent(material, key -> new Totals());
+    }
+
+    /**
+     * Stacks carrying metadata (names, enchantments, damage) never absorb plain items.
+     */
+    private static boolean canMerge(ItemStack stack) {
+        return !stack.hasItemMeta();
+    }
+
+    private static void validate(Material material, int amount) {
+        Objects.requireNonNull(material, "Material cannot be null");
+        if (amount < 0) throw new IllegalArgumentException("Amount cannot be negative");
+    }
+
+    /**
+     * Planned amounts of one material present in the inventory.
+     */
+    private static final class Totals {
+        private int count;
+        // Held in stacks without metadata, which a market can value at the plain unit price
+        private int plainCount;
+        private int partialSpace;
+    }
+}
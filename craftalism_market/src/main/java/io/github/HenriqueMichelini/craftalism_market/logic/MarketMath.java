@@ -3,35 +3,30 @@ package io.github.HenriqueMichelini.craftalism_market.logic;
 import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Objects;
 import java.util.logging.Logger;
 
 public class MarketMath {
-    private static final int MAX_HISTORY_ENTRIES = 10;
     private static final long DECIMAL_SCALE = MoneyFormat.DECIMAL_SCALE;
     private static final Logger LOGGER = Logger.getLogger(MarketMath.class.getName());
 
     /**
-     * Calculates total price for a transaction using geometric progression
+     * Calculates total price for a transaction using geometric progression.
+     * Runs in O(log amount); returns {@link PricingEngine#SATURATED} when the total does not fit in a long.
      * @throws IllegalArgumentException if item is null or amount is negative
      */
     public long getTotalPriceOfItem(MarketItem item, int amount, boolean isAdding) {
         validateInput(item, amount);
+        return getTotalPriceOfItem(item, item.getCurrentPrice(), amount, isAdding);
+    }
 
-        long multiplier = getMultiplier(item, isAdding);
-        long currentPrice = item.getCurrentPrice();
-
-        if (multiplier == DECIMAL_SCALE) {
-            return currentPrice * amount;
-        }
-
-        long powered = pow(multiplier, amount);
-        long numerator = currentPrice * (powered - DECIMAL_SCALE);
-        long denominator = multiplier - DECIMAL_SCALE;
-
-        return numerator / denominator;
+    /**
+     * Total price along the item's curve starting from {@code fromPrice} instead of its current price.
+     */
+    public long getTotalPriceOfItem(MarketItem item, long fromPrice, int amount, boolean isAdding) {
+        validateInput(item, amount);
+        if (PricingEngine.isSaturated(fromPrice)) return PricingEngine.SATURATED;
+        return PricingEngine.totalPrice(fromPrice, getMultiplier(item, isAdding), amount);
     }
 
     /**
@@ -39,36 +34,43 @@ public class MarketMath {
      */
     private long getMultiplier(MarketItem item, boolean isAdding) {
         long variation = item.getPriceVariationPerOperation();
-        return isAdding ? DECIMAL_SCALE + variation : DECIMAL_SCALE - variation;
+        return isAdding ? DECIMAL_SCALE + variation : Math.max(0L, DECIMAL_SCALE - variation);
     }
 
     /**
-     * Calculates the last price in the sequence
+     * Calculates the last price in the sequence.
+     * Runs in O(log termNumber); returns {@link PricingEngine#SATURATED} when the price does not fit in a long.
      * @throws IllegalArgumentException if item is null or termNumber is negative
      */
     public long getLastPriceOfItem(MarketItem item, int termNumber, boolean isAdding) {
         validateInput(item, termNumber);
-        long multiplier = getMultiplier(item, isAdding);
-        long powered = pow(multiplier, termNumber);
-        long scalePowered = pow(DECIMAL_SCALE, termNumber);
-        return (item.getCurrentPrice() * powered) / scalePowered;
+        return getLastPriceOfItem(item, item.getCurrentPrice(), termNumber, isAdding);
+    }
+
+    /**
+     * Last price along the item's curve starting from {@code fromPrice} instead of its current price.
+     */
+    public long getLastPriceOfItem(MarketItem item, long fromPrice, int termNumber, boolean isAdding) {
+        validateInput(item, termNumber);
+        if (PricingEngine.isSaturated(fromPrice)) return PricingEngine.SATURATED;
+        return PricingEngine.lastPrice(fromPrice, getMultiplier(item, isAdding), termNumber);
     }
 
     /**
      * Updates price history with new price entry
-     * Maintains only the last MAX_HISTORY_ENTRIES prices
+     * The item's bounded history drops its oldest price once full
      */
     public void updatePriceHistory(MarketItem item, long newPrice) {
-        Objects.requireNonNull(item, "MarketItem cannot be null");
-
-        LinkedList<Long> history = new LinkedList<>(item.getPriceHistory());
-        history.addFirst(newPrice);
-
-        while (history.size() > MAX_HISTORY_ENTRIES) {
-            history.removeLast();
-        }
+        updatePriceHistory(item, newPrice, 0);
+    }
 
-        item.setPriceHistory(new ArrayList<>(history));
+    /**
+     * Updates price history and the item's candles with a traded volume
+     */
+    public void updatePriceHistory(MarketItem item, long newPrice, long volume) {
+        Objects.requireNonNull(item, "MarketItem cannot be null");
+        item.recordPrice(newPrice);
+        item.getCandles().record(System.currentTimeMillis(), newPrice, volume);
     }
 
     private void validateInput(MarketItem item, int number) {
@@ -77,13 +79,4 @@ public class MarketMath {
             throw new IllegalArgumentException("Amount/term number cannot be negative");
         }
     }
-
-    private long pow(long base, int exponent) {
-        if (exponent == 0) return DECIMAL_SCALE;
-        long result = base;
-        for (int i = 1; i < exponent; i++) {
-            result = (result * base) / DECIMAL_SCALE;
-        }
-        return result;
-    }
 }
\ No newline at end of file
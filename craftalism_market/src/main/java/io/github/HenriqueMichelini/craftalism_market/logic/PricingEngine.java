@@ -0,0 +1,197 @@
+package io.github.HenriqueMichelini.craftalism_market.logic;
+
+import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
+
+/**
+ * Fixed-point pricing primitives shared by quotes and stock regeneration.
+ * <p>
+ * Prices and multipliers are non-negative longs scaled by {@link MoneyFormat#DECIMAL_SCALE}.
+ * Powers are computed by squaring in a finer binary fixed point (30 fractional bits), and every
+ * product is formed in 128 bits with {@link Math#multiplyHigh} so overflow is detected instead of
+ * wrapping.
+ * <p>
+ * Saturation policy: any result that does not fit in a long, and any growth factor above
+ * 2^33, saturates to {@link #SATURATED}. Callers must treat a saturated quote as unaffordable
+ * rather than as a real price.
+ */
+public final class PricingEngine {
+    public static final long SCALE = MoneyFormat.DECIMAL_SCALE;
+    public static final long SATURATED = Long.MAX_VALUE;
+
+    private static final int FRACTION_BITS = 30;
+    private static final int WIDE_FRACTION_BITS = 44;
+    private static final int PRECISE_FRACTION_BITS = 61;
+    private static final long ONE = 1L << FRACTION_BITS;
+    private static final long UNSIGNED_INT_LIMIT = 1L << 32;
+
+    private PricingEngine() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Raises a scaled base to a non-negative integer power by squaring in O(log exponent).
+     */
+    public static long pow(long base, int exponent) {
+        long powered = powFraction(toFraction(base), exponent);
+        return powered == SATURATED ? SATURATED : fromFraction(powered);
+    }
+
+    /**
+     * Price after {@code steps} geometric moves of {@code multiplier} from {@code price}.
+     */
+    public static long lastPrice(long price, long multiplier, int steps) {
+        if (steps == 0 || multiplier == SCALE) return price;
+        long powered = powFraction(toFraction(multiplier), steps);
+        if (powered == SATURATED) return price == 0 ? 0 : SATURATED;
+        return mulDiv(price, powered, ONE);
+    }
+
+    /**
+     * Sum of {@code amount} terms of the geometric series starting at {@code price}
+     * with ratio {@code multiplier}: price * (m^n - 1) / (m - 1).
+     */
+    public static long totalPrice(long price, long multiplier, int amount) {
+        if (amount == 0 || price == 0) return 0;
+        if (multiplier == SCALE) return mulDiv(price, amount, 1);
+
+        long ratio = toFraction(multiplier);
+        long powered = powFraction(ratio, amount);
+        if (powered == SATURATED) return SATURATED;
+
+        // Keep both factors positive so the 128-bit division stays unsigned
+        boolean growing = ratio > ONE;
+        long growth = growing ? powered - ONE : ONE - powered;
+        long step = growing ? ratio - ONE : ONE - ratio;
+        if (step == 0) return mulDiv(price, amount, 1);
+        return mulDiv(price, growth, step);
+    }
+
+    /**
+     * Inverse geometric factor {@code (SCALE / multiplier)^steps}, scaled and rounded half-up.
+     * Runs in O(log steps) without allocating.
+     * <p>
+     * Accuracy contract, measured against the previous per-step BigDecimal computation (step
+     * rounded to scale 10, HALF_UP) for multipliers within 5% of {@code SCALE} and up to 10,000
+     * steps: identical for results up to 10^6 units, within 1 part in 10^6 up to 2^19 * SCALE,
+     * and within 1 part in 10^5 beyond that. Factors the old computation overflowed on saturate.
+     */
+    public static long reverseMultiplier(long multiplier, int steps) {
+        if (multiplier <= 0) throw new IllegalArgumentException("Multiplier must be positive");
+        if (steps == 0) return SCALE;
+
+        // Shrinking factors stay below one, so they can use almost all 63 bits for the fraction
+        if (multiplier >= SCALE) {
+            return reverseMultiplier(multiplier, steps, PRECISE_FRACTION_BITS);
+        }
+        long result = reverseMultiplier(multiplier, steps, WIDE_FRACTION_BITS);
+        return result != SATURATED ? result : reverseMultiplier(multiplier, steps, FRACTION_BITS);
+    }
+
+    private static long reverseMultiplier(long multiplier, int steps, int bits) {
+        long one = 1L << bits;
+        long step = (mulDiv(one, 2 * SCALE, multiplier) + 1) >>> 1;
+        long powered = powFraction(step, steps, bits);
+        if (powered == SATURATED) return SATURATED;
+
+        long doubled = mulDiv(powered, 2 * SCALE, one);
+        return doubled == SATURATED ? SATURATED : (doubled + 1) >>> 1;
+    }
+
+    /**
+     * Computes {@code a * b / SCALE} with a 128-bit intermediate, truncating.
+     */
+    public static long mulScaled(long a, long b) {
+        return mulDiv(a, b, SCALE);
+    }
+
+    /**
+     * Computes {@code a * b / divisor} with a 128-bit intermediate, truncating.
+     * Saturates to {@link #SATURATED} when the quotient does not fit in a long.
+     *
+     * @throws IllegalArgumentException if an operand is negative or the divisor is not positive
+     */
+    public static long mulDiv(long a, long b, long divisor) {
+        if (a < 0 || b < 0) {
+            throw new IllegalArgumentException("Operands cannot be negative");
+        }
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("Divisor must be positive");
+        }
+
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if (high == 0 && low >= 0) return low / divisor;
+
+        if (divisor >= UNSIGNED_INT_LIMIT) {
+            // Drop the low bits of both sides; relative error stays below 2^-31
+            int shift = 64 - Long.numberOfLeadingZeros(divisor) - 31;
+            low = (low >>> shift) | (high << (64 - shift));
+            high >>>= shift;
+            divisor >>>= shift;
+        }
+        if (Long.compareUnsigned(high, divisor) >= 0) return SATURATED;
+
+        // Schoolbook division of (high:low) by a 32-bit divisor, 32 bits at a time
+        long upper = (high << 32) | (low >>> 32);
+        long upperQuotient = Long.divideUnsigned(upper, divisor);
+        long upperRemainder = Long.remainderUnsigned(upper, divisor);
+        long lower = (upperRemainder << 32) | (low & 0xFFFFFFFFL);
+        long lowerQuotient = Long.divideUnsigned(lower, divisor);
+
+        if (upperQuotient >= (1L << 31)) return SATURATED;
+        return (upperQuotient << 32) | lowerQuotient;
+    }
+
+    /**
+     * @return true if the value is the saturation sentinel
+     */
+    public static boolean isSaturated(long value) {
+        return value == SATURATED;
+    }
+
+    private static long powFraction(long base, int exponent) {
+        return powFraction(base, exponent, FRACTION_BITS);
+    }
+
+    private static long powFraction(long base, int exponent, int bits) {
+        if (exponent < 0) throw new IllegalArgumentException("Exponent cannot be negative");
+        if (base == SATURATED) return SATURATED;
+
+        long result = 1L << bits;
+        long square = base;
+        int remaining = exponent;
+
+        while (remaining > 0) {
+            if ((remaining & 1) == 1) {
+                result = mulFraction(result, square, bits);
+                if (result == SATURATED) return SATURATED;
+            }
+            remaining >>>= 1;
+            if (remaining > 0) {
+                square = mulFraction(square, square, bits);
+                if (square == SATURATED) return SATURATED;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies two binary fixed-point values with {@code bits} fractional bits;
+     * saturates when the product needs more than {@code 63 - bits} integer bits.
+     */
+    private static long mulFraction(long a, long b, int bits) {
+        long high = Math.multiplyHigh(a, b);
+        if ((high >>> (bits - 1)) != 0) return SATURATED;
+        long low = a * b;
+        return (high << (64 - bits)) | (low >>> bits);
+    }
+
+    private static long toFraction(long scaled) {
+        if (scaled < 0) throw new IllegalArgumentException("Base cannot be negative");
+        return mulDiv(scaled, ONE, SCALE);
+    }
+
+    private static long fromFraction(long fraction) {
+        return mulDiv(fraction, SCALE, ONE);
+    }
+}
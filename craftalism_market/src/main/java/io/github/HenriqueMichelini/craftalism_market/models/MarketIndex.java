@@ -0,0 +1,101 @@
+package io.github.HenriqueMichelini.craftalism_market.models;
+
+import org.bukkit.Material;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Read-only lookups over the loaded catalog, built once per parse.
+ * <p>
+ * Items get dense ids ({@link MarketItem#getIndexId()}) in category then slot order, so
+ * per-item state can live in arrays, and each category's items are a contiguous, slot-sorted
+ * run. Lookups by id, material or category allocate nothing. Items without a material are left
+ * out; when two items share a material, only the first in category then slot order is found by
+ * material.
+ */
+public final class MarketIndex {
+    private static final Logger LOGGER = Logger.getLogger(MarketIndex.class.getName());
+
+    private final MarketItem[] items;
+    private final String[] keys;
+    private final Map<Material, MarketItem> byMaterial = new EnumMap<>(Material.class);
+    private final Map<String, List<MarketItem>> byCategory = new HashMap<>();
+
+    private MarketIndex(MarketItem[] items, String[] keys) {
+        this.items = items;
+        this.keys = keys;
+    }
+
+    /**
+     * @param catalog items keyed by their item id, as loaded by the parser
+     */
+    public static MarketIndex build(Map<String, MarketItem> catalog) {
+        List<Map.Entry<String, MarketItem>> entries = new ArrayList<>(catalog.size());
+        for (Map.Entry<String, MarketItem> entry : catalog.entrySet()) {
+            if (entry.getValue().getMaterial() == null) {
+                LOGGER.warning("Skipping market item " + entry.getKey() + " without a known material");
+                continue;
+            }
+            entries.add(entry);
+        }
+        entries.sort(Comparator.comparing((Map.Entry<String, MarketItem> entry) -> entry.getValue().getCategory())
+                .thenComparingInt(entry -> entry.getValue().getSlot())
+                .thenComparing(Map.Entry::getKey));
+
+        MarketItem[] items = new MarketItem[entries.size()];
+        String[] keys = new String[entries.size()];
+        MarketIndex index = new MarketIndex(items, keys);
+
+        int categoryStart = 0;
+        for (int id = 0; id < items.length; id++) {
+            MarketItem item = entries.get(id).getValue();
+            item.setIndexId(id);
+            items[id] = item;
+            keys[id] = entries.get(id).getKey();
+            MarketItem listed = index.byMaterial.putIfAbsent(item.getMaterial(), item);
+            if (listed != null) {
+                LOGGER.warning(String.format("Market items %s and %s share the material %s; only %s is used for lookups by material",
+                        keys[listed.getIndexId()], keys[id], item.getMaterial(), keys[listed.getIndexId()]));
+            }
+
+            boolean lastOfCategory = id + 1 == items.length
+                    || !entries.get(id + 1).getValue().getCategory().equals(item.getCategory());
+            if (lastOfCategory) {
+                index.byCategory.put(item.getCategory(),
+                        Collections.unmodifiableList(Arrays.asList(items).subList(categoryStart, id + 1)));
+                categoryStart = id + 1;
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public MarketItem get(int id) {
+        return items[id];
+    }
+
+    /**
+     * @return the listed item of that material, or null
+     */
+    public MarketItem get(Material material) {
+        return byMaterial.get(material);
+    }
+
+    /**
+     * @return the id the item is stored under in the catalog and in transaction requests
+     */
+    public String keyOf(MarketItem item) {
+        return keys[item.getIndexId()];
+    }
+
+    /**
+     * @return the category's items sorted by slot; empty for an unknown category
+     */
+    public List<MarketItem> inCategory(String category) {
+        return byCategory.getOrDefault(category, List.of());
+    }
+}
@@ -1,9 +1,9 @@
 package io.github.HenriqueMichelini.craftalism_market.models;
 
+import io.github.HenriqueMichelini.craftalism_market.history.CandleHistory;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Material;
-import java.util.List;
 
 public class MarketItem {
     // Immutable fields
@@ -25,7 +25,16 @@ public class MarketItem {
     private int stockSurplus;
 
     private long lastActivity;
-    private List<Long> priceHistory;
+    private final PriceHistory priceHistory;
+    private final CandleHistory candles = new CandleHistory();
+
+    // Set by every mutation, cleared when a snapshot is taken for saving
+    private boolean dirty;
+    // Bumped by every mutation of a displayed field and never reset; views re-render only when it moves
+    private long version;
+    private String name;
+    // Position in the current MarketIndex
+    private int indexId = -1;
 
     public MarketItem
     (
@@ -44,7 +53,7 @@ public class MarketItem {
             long                nextUpdateTime,
             int                 stockSurplus,
             long                lastActivity,
-            List<Long>          priceHistory
+            PriceHistory        priceHistory
     )
     {
             this.category = category;
@@ -81,9 +90,30 @@ public class MarketItem {
     public long         getNextUpdateTime()             { return nextUpdateTime; }
     public int          getStockSurplus()               { return stockSurplus; }
     public long         getLastActivity()               { return lastActivity; }
-    public List<Long>   getPriceHistory()               { return priceHistory; }
+    public PriceHistoryView getPriceHistory()           { return priceHistory; }
+    public CandleHistory getCandles()                   { return candles; }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getIndexId() {
+        return indexId;
+    }
 
+    void setIndexId(int indexId) {
+        this.indexId = indexId;
+    }
+
+    /**
+     * Plain-text display name; serialized once, since it only depends on the material.
+     */
     public String getName() {
+        if (name == null) name = translateName();
+        return name;
+    }
+
+    private String translateName() {
         String translationKey = material.isBlock()
                 ? "block.minecraft." + material.name().toLowerCase()
                 : "item.minecraft." + material.name().toLowerCase();
@@ -94,14 +124,59 @@ public class MarketItem {
     }
 
     // Setters (mutable fields only) ----------------------------
-    public void setCurrentPrice(long currentPrice)                                  { this.currentPrice = currentPrice; }
-    public void setPriceVariationPerOperation(long priceVariationPerOperation)      { this.priceVariationPerOperation = priceVariationPerOperation; }
-    public void setCurrentStock(int currentStock)                                   { this.currentStock = currentStock; }
-    public void setBaseStock(int baseStock)                                         { this.baseStock = baseStock;       }
-    public void setStockRegenerationMultiplier(double stockRegenerationMultiplier)  { this.stockRegenerationMultiplier = stockRegenerationMultiplier; }
-    public void setStockRegenerationRate(double stockRegenerationRate)              { this.stockRegenerationRate = stockRegenerationRate; }
-    public void setNextUpdateTime(long nextUpdateTime)                              { this.nextUpdateTime = nextUpdateTime; }
-    public void setStockSurplus(int stockSurplus)                                   { this.stockSurplus = stockSurplus; }
-    public void setLastActivity(long lastActivity)                                  { this.lastActivity = lastActivity; }
-    public void setPriceHistory(List<Long> priceHistory)                            { this.priceHistory = priceHistory; }
+    public void setCurrentPrice(long currentPrice)                                  { this.currentPrice = currentPrice; markChanged(); }
+    public void setPriceVariationPerOperation(long priceVariationPerOperation)      { this.priceVariationPerOperation = priceVariationPerOperation; markChanged(); }
+    public void setCurrentStock(int currentStock)                                   { this.currentStock = currentStock; markChanged(); }
+    public void setBaseStock(int baseStock)                                         { this.baseStock = baseStock; markChanged(); }
+    public void setStockRegenerationMultiplier(double stockRegenerationMultiplier)  { this.stockRegenerationMultiplier = stockRegenerationMultiplier; markChanged(); }
+    public void setStockRegenerationRate(double stockRegenerationRate)              { this.stockRegenerationRate = stockRegenerationRate; markChanged(); }
+    public void setNextUpdateTime(long nextUpdateTime)                              { this.nextUpdateTime = nextUpdateTime; markDirty(); }
+    public void setStockSurplus(int stockSurplus)                                   { this.stockSurplus = stockSurplus; markChanged(); }
+    public void setLastActivity(long lastActivity)                                  { this.lastActivity = lastActivity; markDirty(); }
+    public void recordPrice(long price)                                             { priceHistory.add(price); markChanged(); }
+
+    private void markChanged() {
+        dirty = true;
+        version++;
+    }
+
+    /**
+     * For fields no view shows, such as scheduling: saved, but cached renders stay valid.
+     */
+    private void markDirty() {
+        dirty = true;
+    }
+
+    // Persistence ----------------------------------------------
+    public boolean isDirty() { return dirty; }
+
+    /**
+     * Marks the item as saved; call after taking the {@link #snapshot()} that will be written.
+     */
+    public void markClean() { dirty = false; }
+
+    /**
+     * Captures the persisted fields. Main thread only; the snapshot itself can be
+     * written from any thread.
+     */
+    public MarketItemSnapshot snapshot() {
+        return new MarketItemSnapshot(
+                material.name(),
+                category,
+                slot,
+                basePrice,
+                currentPrice,
+                priceVariationPerOperation,
+                taxRate,
+                originalStock,
+                baseStock,
+                currentStock,
+                stockRegenerationMultiplier,
+                stockRegenerationRate,
+                nextUpdateTime,
+                stockSurplus,
+                lastActivity,
+                priceHistory.toArray()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package io.github.HenriqueMichelini.craftalism_market.models;
+
+import org.bukkit.Material;
+
+/**
+ * Immutable copy of the persisted fields of a {@link MarketItem}.
+ */
+public record MarketItemSnapshot(
+        String material,
+        String category,
+        int slot,
+        long basePrice,
+        long currentPrice,
+        long priceVariation,
+        double taxRate,
+        int originalStock,
+        int baseStock,
+        int currentStock,
+        double stockRegenerationMultiplier,
+        double stockRegenerationRate,
+        long nextUpdateTime,
+        int stockSurplus,
+        long lastActivity,
+        long[] priceHistory
+) {
+    /**
+     * Rebuilds a live item from the snapshot; the material is resolved by the caller.
+     */
+    public MarketItem toMarketItem(Material resolvedMaterial) {
+        return new MarketItem(
+                category,
+                resolvedMaterial,
+                slot,
+                basePrice,
+                currentPrice,
+                priceVariation,
+                taxRate,
+                originalStock,
+                baseStock,
+                currentStock,
+                stockRegenerationMultiplier,
+                stockRegenerationRate,
+                nextUpdateTime,
+                stockSurplus,
+                lastActivity,
+                PriceHistory.of(PriceHistory.DEFAULT_CAPACITY, priceHistory)
+        );
+    }
+}
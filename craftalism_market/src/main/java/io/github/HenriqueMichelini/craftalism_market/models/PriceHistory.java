@@ -0,0 +1,57 @@
+package io.github.HenriqueMichelini.craftalism_market.models;
+
+import java.util.Objects;
+
+/**
+ * Fixed-capacity ring buffer of prices. Adding a price never allocates;
+ * once full, the oldest price is overwritten.
+ */
+public class PriceHistory implements PriceHistoryView {
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private final long[] prices;
+    private int oldest;
+    private int size;
+
+    public PriceHistory(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.prices = new long[capacity];
+    }
+
+    /**
+     * Creates a history holding the last {@code capacity} of the given prices, oldest first.
+     */
+    public static PriceHistory of(int capacity, long... prices) {
+        Objects.requireNonNull(prices, "Prices cannot be null");
+        PriceHistory history = new PriceHistory(capacity);
+        for (int i = Math.max(0, prices.length - capacity); i < prices.length; i++) {
+            history.add(prices[i]);
+        }
+        return history;
+    }
+
+    public void add(long price) {
+        if (size < prices.length) {
+            prices[(oldest + size++) % prices.length] = price;
+        } else {
+            prices[oldest] = price;
+            oldest = (oldest + 1) % prices.length;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return prices.length;
+    }
+
+    @Override
+    public long get(int index) {
+        Objects.checkIndex(index, size);
+        return prices[(oldest + index) % prices.length];
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.HenriqueMichelini.craftalism_market.models;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Read-only view of an item's recent prices, oldest first.
+ */
+public interface PriceHistoryView {
+    int size();
+
+    int capacity();
+
+    /**
+     * @param index 0 for the oldest retained price, {@code size() - 1} for the latest
+     * @throws IndexOutOfBoundsException if the index is outside the retained range
+     */
+    long get(int index);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @throws IllegalStateException if the history is empty
+     */
+    default long latest() {
+        if (isEmpty()) throw new IllegalStateException("Price history is empty");
+        return get(size() - 1);
+    }
+
+    /**
+     * Visits up to {@code count} of the most recent prices, oldest first, without allocating.
+     */
+    default void forEachRecent(int count, LongConsumer action) {
+        for (int i = Math.max(0, size() - count); i < size(); i++) {
+            action.accept(get(i));
+        }
+    }
+
+    /**
+     * @return a copy of the retained prices, oldest first
+     */
+    default long[] toArray() {
+        long[] copy = new long[size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = get(i);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.HenriqueMichelini.craftalism_market.orders;
+
+import org.bukkit.Material;
+
+import java.util.UUID;
+
+/**
+ * Detached view of a resting order, used for listings and persistence.
+ *
+ * @param limitPrice scaled by {@code MoneyFormat.DECIMAL_SCALE}
+ */
+public record LimitOrder(
+        long id,
+        UUID owner,
+        Material material,
+        OrderSide side,
+        long limitPrice,
+        int remaining
+) {}
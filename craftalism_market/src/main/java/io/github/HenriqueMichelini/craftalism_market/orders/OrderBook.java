@@ -0,0 +1,17 @@
+package io.github.HenriqueMichelini.craftalism_market.orders;
+
+/**
+ * Resting bids and asks for one market item.
+ */
+final class OrderBook {
+    final OrderQueue bids = new OrderQueue(true);
+    final OrderQueue asks = new OrderQueue(false);
+
+    OrderQueue queue(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    boolean isEmpty() {
+        return bids.isEmpty() && asks.isEmpty();
+    }
+}
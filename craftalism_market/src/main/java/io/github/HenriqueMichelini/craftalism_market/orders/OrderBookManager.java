@@ -0,0 +1,525 @@
+package io.github.HenriqueMichelini.craftalism_market.orders;
+
+import io.github.HenriqueMichelini.craftalism_economy.economy.managers.EconomyManager;
+import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
+import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
+import io.github.HenriqueMichelini.craftalism_market.core.SettlementPipeline;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryCountCache;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryHandler;
+import io.github.HenriqueMichelini.craftalism_market.logic.InventoryPlan;
+import io.github.HenriqueMichelini.craftalism_market.logic.MarketMath;
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
+import io.github.HenriqueMichelini.craftalism_market.stock.listener.StockUpdateListener;
+import io.github.HenriqueMichelini.craftalism_market.storage.AtomicFiles;
+import io.github.HenriqueMichelini.craftalism_market.storage.JournalRecord;
+import io.github.HenriqueMichelini.craftalism_market.storage.TradeRecord;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Standing buy and sell limit orders, matched whenever an item's price moves.
+ * <p>
+ * Placing an order escrows its limit price per unit (buys) or its items (sells). Each time a
+ * trade or a regeneration changes an item, the stock listener flush matches that item's book:
+ * the best bid buys along the price curve while the unit price stays at or below its limit,
+ * and the best ask sells while it stays at or above. Buyers are refunded the difference to
+ * their limit. Items owed to offline players, by orders or by failed sales, are delivered
+ * when they next join.
+ * <p>
+ * Main thread only; with a settlement pipeline, escrow, payouts and refunds are settled on its
+ * worker. Changes are written to orders.yml on the storage thread, at most once per tick.
+ * Sell orders and deliveries of materials this server version does not know cannot be returned;
+ * they are kept under {@code orphaned} in orders.yml and retried on every load.
+ */
+public class OrderBookManager implements StockUpdateListener {
+    private static final Logger LOGGER = Logger.getLogger(OrderBookManager.class.getName());
+    // Bids and asks can push the price back and forth across each other; cap the work per flush
+    private static final int MAX_MATCH_ROUNDS = 16;
+
+    private final MoneyFormat moneyFormat;
+    private final EconomyManager economyManager;
+    private final MarketMath marketMath;
+    private final ConfigManager configManager;
+    private final StockHandler stockHandler;
+    private final SettlementPipeline pipeline;
+    private final InventoryCountCache inventoryCounts;
+    private final Executor nextTick;
+    private final File file;
+
+    private final Map<MarketItem, OrderBook> books = new HashMap<>();
+    private final Map<UUID, Map<Material, Integer>> deliveries = new HashMap<>();
+    // Kept verbatim until their material resolves again
+    private final Map<Long, Map<String, Object>> orphanedOrders = new TreeMap<>();
+    private final Map<String, Map<String, Integer>> orphanedDeliveries = new TreeMap<>();
+    // Buy orders whose escrow is still settling, per owner; they count towards the open order limit
+    private final Map<UUID, Integer> escrowsInFlight = new HashMap<>();
+    private long nextOrderId = 1;
+    private boolean saveScheduled;
+
+    /**
+     * @param pipeline        settles the orders' economy calls off the main thread and holds the reserved
+     *                        stock orders must leave alone, or null
+     * @param inventoryCounts owned counts shown on trade screens, invalidated for every inventory an order changes
+     * @param nextTick        schedules a task on the server thread for the next tick
+     */
+    public OrderBookManager(
+            File                dataFolder,
+            MoneyFormat         moneyFormat,
+            EconomyManager      economyManager,
+            MarketMath          marketMath,
+            ConfigManager       configManager,
+            StockHandler        stockHandler,
+            SettlementPipeline  pipeline,
+            InventoryCountCache inventoryCounts,
+            Executor            nextTick
+    )
+    {
+        this.file            = new File(dataFolder, "orders.yml");
+        this.moneyFormat     = moneyFormat;
+        this.economyManager  = economyManager;
+        this.marketMath      = marketMath;
+        this.configManager   = configManager;
+        this.stockHandler    = stockHandler;
+        this.pipeline        = pipeline;
+        this.inventoryCounts = inventoryCounts;
+        this.nextTick        = nextTick;
+        load();
+        stockHandler.addStockUpdateListener(this);
+    }
+
+    @Override
+    public void onStockUpdated(MarketItem item) {
+        match(item);
+    }
+
+    /**
+     * Escrows and rests a new order, then matches it right away if the price already crosses it.
+     * A buy order rests once its escrow has settled; the player is told either way.
+     *
+     * @param limitPrice scaled by {@link MoneyFormat#DECIMAL_SCALE}
+     */
+    public void place(Player player, MarketItem item, OrderSide side, int amount, long limitPrice) {
+        UUID owner = player.getUniqueId();
+        if (amount <= 0 || limitPrice <= 0) {
+            sendError(player, "Amount and price must be positive");
+            return;
+        }
+        int maxOpenOrders = configManager.getMaxOpenOrders();
+        if (getOrders(owner).size() + escrowsInFlight.getOrDefault(owner, 0) >= maxOpenOrders) {
+            sendError(player, "You already have %d open orders".formatted(maxOpenOrders));
+            return;
+        }
+
+        if (side == OrderSide.BUY) {
+            long escrow = PricingEngine.mulDiv(limitPrice, amount, 1);
+            if (PricingEngine.isSaturated(escrow)) {
+                sendError(player, "You cannot afford to escrow %s".formatted(formatEscrow(escrow)));
+                return;
+            }
+            escrowsInFlight.merge(owner, 1, Integer::sum);
+            settle(() -> economyManager.withdraw(owner, escrow)).thenAccept(paid -> {
+                escrowsInFlight.computeIfPresent(owner, (key, count) -> count > 1 ? count - 1 : null);
+                if (!paid) {
+                    sendError(player, "You cannot afford to escrow %s".formatted(formatEscrow(escrow)));
+                    return;
+                }
+                rest(player, item, side, amount, limitPrice);
+            });
+            return;
+        }
+
+        // Escrowed items come back as plain stacks, so named or enchanted ones are never taken
+        InventoryPlan inventory = InventoryPlan.scan(player.getInventory());
+        if (inventory.plainCount(item.getMaterial()) < amount) {
+            sendError(player, "You do not have %d %s without names or enchantments".formatted(amount, item.getName()));
+            return;
+        }
+        inventory.planRemovePlain(item.getMaterial(), amount);
+        inventory.apply();
+        inventoryCounts.invalidate(player, item.getMaterial());
+        rest(player, item, side, amount, limitPrice);
+    }
+
+    private void rest(Player player, MarketItem item, OrderSide side, int amount, long limitPrice) {
+        UUID owner = player.getUniqueId();
+        long id = nextOrderId++;
+        books.computeIfAbsent(item, key -> new OrderBook()).queue(side).add(id, owner, limitPrice, amount);
+        sendSuccess(player, "Placed %s order #%d: %d %s at %s each".formatted(
+                side.name().toLowerCase(Locale.ROOT), id, amount, item.getName(), moneyFormat.formatPrice(limitPrice)));
+        scheduleSave();
+
+        stockHandler.settle(item);
+        match(item);
+    }
+
+    /**
+     * Cancels one of the player's orders and returns what is still escrowed.
+     *
+     * @return true if the order was cancelled
+     */
+    public boolean cancel(Player player, long id) {
+        for (Map.Entry<MarketItem, OrderBook> entry : books.entrySet()) {
+            for (OrderSide side : OrderSide.values()) {
+                OrderQueue queue = entry.getValue().queue(side);
+                int index = queue.indexOf(id);
+                if (index < 0) continue;
+
+                UUID owner = queue.ownerAt(index);
+                if (!owner.equals(player.getUniqueId())) {
+                    sendError(player, "Order #%d is not yours".formatted(id));
+                    return false;
+                }
+                returnEscrow(owner, entry.getKey().getMaterial(), side, queue.priceAt(index), queue.remainingAt(index));
+                queue.removeAt(index);
+                sendSuccess(player, "Cancelled order #%d".formatted(id));
+                scheduleSave();
+                return true;
+            }
+        }
+        sendError(player, "No open order #%d".formatted(id));
+        return false;
+    }
+
+    /**
+     * @return the owner's open orders, oldest first
+     */
+    public List<LimitOrder> getOrders(UUID owner) {
+        List<LimitOrder> orders = new ArrayList<>();
+        forEachOrder(order -> {
+            if (order.owner().equals(owner)) orders.add(order);
+        });
+        orders.sort(Comparator.comparingLong(LimitOrder::id));
+        return orders;
+    }
+
+    /**
+     * Fills every order the item's current price crosses.
+     */
+    public void match(MarketItem item) {
+        OrderBook book = books.get(item);
+        if (book == null || book.isEmpty()) return;
+
+        boolean filled = false;
+        for (int round = 0; round < MAX_MATCH_ROUNDS; round++) {
+            // Both sides every round: filling bids raises the price, which can cross asks, and back
+            boolean progressed = fillBids(item, book.bids) | fillAsks(item, book.asks);
+            if (!progressed) break;
+            filled = true;
+        }
+        if (!filled) return;
+
+        // Refreshes views and, if the rounds ran out, continues matching next tick
+        stockHandler.notifyItemsUpdated(List.of(item));
+        scheduleSave();
+    }
+
+    /**
+     * Hands over items bought or returned while the player was offline.
+     */
+    public void deliverPending(Player player) {
+        Map<Material, Integer> pending = deliveries.remove(player.getUniqueId());
+        if (pending == null) return;
+
+        pending.forEach((material, amount) -> {
+            InventoryHandler.addItemToPlayer(player, material, amount);
+            inventoryCounts.invalidate(player, material);
+        });
+        sendSuccess(player, "You received the items the market owed you");
+        scheduleSave();
+    }
+
+    private boolean fillBids(MarketItem item, OrderQueue bids) {
+        boolean progressed = false;
+        while (!bids.isEmpty()) {
+            long limit = bids.bestPrice();
+            int available = item.getCurrentStock() - (pipeline == null ? 0 : pipeline.getReservedStock(item));
+            if (available <= 0 || item.getCurrentPrice() > limit) break;
+
+            int remaining = bids.bestRemaining();
+            int amount = unitsWithinLimit(item, limit, Math.min(remaining, available), true);
+            if (amount == 0) break;
+
+            long escrow = PricingEngine.mulDiv(limit, amount, 1);
+            long cost = Math.min(marketMath.getTotalPriceOfItem(item, amount, true), escrow);
+            UUID owner = bids.bestOwner();
+            long id = bids.bestId();
+
+            if (escrow > cost) pay(owner, escrow - cost, "the unused escrow of buy order #" + id);
+            deliver(owner, item.getMaterial(), amount);
+            applyFill(item, owner, JournalRecord.Type.BUY, amount, cost);
+            bids.fillBest(amount);
+            notifyOwner(owner, "Buy order #%d filled: %d %s for %s".formatted(
+                    id, amount, item.getName(), moneyFormat.formatPrice(cost)));
+            progressed = true;
+
+            // A partial fill means the price passed the limit or the stock ran out
+            if (amount < remaining) break;
+        }
+        return progressed;
+    }
+
+    private boolean fillAsks(MarketItem item, OrderQueue asks) {
+        boolean progressed = false;
+        while (!asks.isEmpty()) {
+            long limit = asks.bestPrice();
+            if (item.getCurrentPrice() < limit) break;
+
+            int remaining = asks.bestRemaining();
+            int amount = unitsWithinLimit(item, limit, remaining, false);
+            if (amount == 0) break;
+
+            long totalBeforeTax = marketMath.getTotalPriceOfItem(item, amount, false);
+            if (PricingEngine.isSaturated(totalBeforeTax)) break;
+            double tax = totalBeforeTax * item.getTaxRate();
+            long earningsAfterTax = (long) (totalBeforeTax - tax);
+            UUID owner = asks.bestOwner();
+            long id = asks.bestId();
+
+            pay(owner, earningsAfterTax, "sell order #" + id);
+            applyFill(item, owner, JournalRecord.Type.SELL, amount, earningsAfterTax);
+            asks.fillBest(amount);
+            notifyOwner(owner, "Sell order #%d filled: %d %s for %s. Tax of %s deducted.".formatted(
+                    id, amount, item.getName(), moneyFormat.formatPrice(earningsAfterTax),
+                    moneyFormat.formatPrice((long) tax)));
+            progressed = true;
+
+            if (amount < remaining) break;
+        }
+        return progressed;
+    }
+
+    /**
+     * Largest number of units, up to {@code cap}, whose last unit still trades within the limit.
+     * Unit prices move monotonically along the curve, so this is a binary search.
+     */
+    private int unitsWithinLimit(MarketItem item, long limit, int cap, boolean isBuy) {
+        int low = 0;
+        int high = cap;
+        while (low < high) {
+            int middle = low + (high - low + 1) / 2;
+            long unitPrice = marketMath.getLastPriceOfItem(item, middle - 1, isBuy);
+            boolean withinLimit = isBuy ? unitPrice <= limit : unitPrice >= limit;
+            if (withinLimit) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void applyFill(MarketItem item, UUID owner, JournalRecord.Type side, int amount, long totalPrice) {
+        boolean isBuy = side == JournalRecord.Type.BUY;
+        long lastPrice = marketMath.getLastPriceOfItem(item, amount, isBuy);
+        item.setCurrentPrice(lastPrice);
+        item.setCurrentStock(item.getCurrentStock() + (isBuy ? -amount : amount));
+        marketMath.updatePriceHistory(item, lastPrice, amount);
+        stockHandler.markItemForUpdate(item);
+
+        stockHandler.upgradeBaseStock(item, (int) (amount * configManager.getStockIncreasePercentage()));
+        stockHandler.upgradeStockRegeneration(item, amount);
+        configManager.getJournal().append(side, item, amount);
+        configManager.recordTrade(new TradeRecord(
+                System.currentTimeMillis(), owner, item.getMaterial().name(), side, amount, totalPrice));
+    }
+
+    private void returnEscrow(UUID owner, Material material, OrderSide side, long limitPrice, int remaining) {
+        if (side == OrderSide.BUY) {
+            pay(owner, PricingEngine.mulDiv(limitPrice, remaining, 1), "a returned buy order escrow");
+        } else {
+            deliver(owner, material, remaining);
+        }
+    }
+
+    /**
+     * Makes the economy call on the settlement pipeline's worker when there is one, otherwise
+     * inline. The future completes on the main thread either way.
+     */
+    private CompletableFuture<Boolean> settle(Supplier<Boolean> economyCall) {
+        if (pipeline == null) return CompletableFuture.completedFuture(economyCall.get());
+        return pipeline.settle(economyCall);
+    }
+
+    private void pay(UUID owner, long amount, String reason) {
+        if (amount <= 0) return;
+        settle(() -> {
+            economyManager.deposit(owner, amount);
+            return true;
+        }).thenAccept(paid -> {
+            if (!paid) LOGGER.severe("Failed to pay " + amount + " to " + owner + " for " + reason);
+        });
+    }
+
+    /**
+     * Hands items to the owner now, or keeps them in orders.yml until the owner next joins.
+     */
+    public void deliver(UUID owner, Material material, int amount) {
+        Player player = Bukkit.getPlayer(owner);
+        if (player != null && player.isOnline()) {
+            InventoryHandler.addItemToPlayer(player, material, amount);
+            inventoryCounts.invalidate(player, material);
+            return;
+        }
+        deliveries.computeIfAbsent(owner, key -> new EnumMap<>(Material.class)).merge(material, amount, Integer::sum);
+        scheduleSave();
+    }
+
+    private void forEachOrder(Consumer<LimitOrder> action) {
+        books.forEach((item, book) -> {
+            for (OrderSide side : OrderSide.values()) {
+                OrderQueue queue = book.queue(side);
+                for (int i = 0; i < queue.size(); i++) {
+                    action.accept(new LimitOrder(
+                            queue.idAt(i), queue.ownerAt(i), item.getMaterial(), side, queue.priceAt(i), queue.remainingAt(i)));
+                }
+            }
+        });
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) return;
+        saveScheduled = true;
+        nextTick.execute(() -> {
+            saveScheduled = false;
+            save();
+        });
+    }
+
+    /**
+     * Serializes every order and pending delivery on the calling (main) thread and writes them
+     * on the storage thread, behind any market data already queued.
+     */
+    public CompletableFuture<Void> save() {
+        YamlConfiguration document = new YamlConfiguration();
+        document.set("next-order-id", nextOrderId);
+        forEachOrder(order -> {
+            String path = "orders." + order.id();
+            document.set(path + ".owner", order.owner().toString());
+            document.set(path + ".material", order.material().name());
+            document.set(path + ".side", order.side().name().toLowerCase(Locale.ROOT));
+            document.set(path + ".price", order.limitPrice());
+            document.set(path + ".remaining", order.remaining());
+        });
+        deliveries.forEach((owner, pending) -> pending.forEach((material, amount) ->
+                document.set("deliveries." + owner + "." + material.name(), amount)));
+        orphanedOrders.forEach((id, values) -> values.forEach((field, value) ->
+                document.set("orphaned.orders." + id + "." + field, value)));
+        orphanedDeliveries.forEach((owner, pending) -> pending.forEach((materialName, amount) ->
+                document.set("orphaned.deliveries." + owner + "." + materialName, amount)));
+
+        byte[] data = document.saveToString().getBytes(StandardCharsets.UTF_8);
+        return configManager.runOnStorageThread(() -> {
+            try {
+                AtomicFiles.write(file.toPath(), data);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to save market orders", e);
+            }
+        });
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        YamlConfiguration document = YamlConfiguration.loadConfiguration(file);
+        nextOrderId = document.getLong("next-order-id", 1L);
+
+        loadDeliveries(document.getConfigurationSection("deliveries"));
+        loadDeliveries(document.getConfigurationSection("orphaned.deliveries"));
+        loadOrders(document.getConfigurationSection("orders"));
+        loadOrders(document.getConfigurationSection("orphaned.orders"));
+    }
+
+    private void loadDeliveries(ConfigurationSection deliveriesSection) {
+        if (deliveriesSection == null) return;
+        for (String owner : deliveriesSection.getKeys(false)) {
+            ConfigurationSection pending = deliveriesSection.getConfigurationSection(owner);
+            if (pending == null) continue;
+            for (String materialName : pending.getKeys(false)) {
+                int amount = pending.getInt(materialName);
+                Material material = Material.getMaterial(materialName);
+                if (material == null) {
+                    LOGGER.warning("Keeping pending delivery of %d unknown %s for %s in orders.yml until the material exists"
+                            .formatted(amount, materialName, owner));
+                    orphanedDeliveries.computeIfAbsent(owner, key -> new TreeMap<>()).merge(materialName, amount, Integer::sum);
+                    continue;
+                }
+                deliveries.computeIfAbsent(UUID.fromString(owner), key -> new EnumMap<>(Material.class))
+                        .merge(material, amount, Integer::sum);
+            }
+        }
+    }
+
+    private void loadOrders(ConfigurationSection ordersSection) {
+        if (ordersSection == null) return;
+        for (String key : ordersSection.getKeys(false)) {
+            ConfigurationSection order = ordersSection.getConfigurationSection(key);
+            if (order == null) continue;
+            try {
+                loadOrder(Long.parseLong(key), order);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Skipping malformed market order " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void loadOrder(long id, ConfigurationSection order) {
+        UUID owner = UUID.fromString(order.getString("owner", ""));
+        OrderSide side = OrderSide.valueOf(order.getString("side", "").toUpperCase(Locale.ROOT));
+        String materialName = order.getString("material", "");
+        long limitPrice = order.getLong("price");
+        int remaining = order.getInt("remaining");
+        nextOrderId = Math.max(nextOrderId, id + 1);
+
+        Material material = Material.getMaterial(materialName);
+        MarketItem item = material == null ? null : configManager.getIndex().get(material);
+        if (item == null) {
+            if (side == OrderSide.SELL && material == null) {
+                // Items of a material this server doesn't know cannot be handed back; keep the record
+                orphanedOrders.put(id, order.getValues(false));
+                LOGGER.warning("Keeping sell order %d of unknown material %s in orders.yml until it can be returned"
+                        .formatted(id, materialName));
+                return;
+            }
+            // The item left the market; hand the escrow back rather than losing it
+            returnEscrow(owner, material, side, limitPrice, remaining);
+            LOGGER.warning("Returned escrow of order " + id + " for unlisted item " + materialName);
+            scheduleSave();
+            return;
+        }
+        books.computeIfAbsent(item, key -> new OrderBook()).queue(side).add(id, owner, limitPrice, remaining);
+    }
+
+    private String formatEscrow(long escrow) {
+        return PricingEngine.isSaturated(escrow) ? "that much" : moneyFormat.formatPrice(escrow);
+    }
+
+    private void notifyOwner(UUID owner, String message) {
+        Player player = Bukkit.getPlayer(owner);
+        if (player != null) sendSuccess(player, message);
+    }
+
+    private void sendError(Player player, String message) {
+        player.sendMessage(Component.text(message, NamedTextColor.RED));
+    }
+
+    private void sendSuccess(Player player, String message) {
+        player.sendMessage(Component.text(message, NamedTextColor.GREEN));
+    }
+}
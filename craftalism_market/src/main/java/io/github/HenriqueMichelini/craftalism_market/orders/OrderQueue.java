@@ -0,0 +1,153 @@
+package io.github.HenriqueMichelini.craftalism_market.orders;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * One side of an order book in parallel primitive arrays, kept sorted by price so the best
+ * order sits at the end.
+ * <p>
+ * Filling and removing the best order is O(1); inserting is a binary search plus one array
+ * shift. Among equal prices the oldest order is nearest the end, so it fills first.
+ */
+final class OrderQueue {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final boolean highestFirst;
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] ownersHigh = new long[INITIAL_CAPACITY];
+    private long[] ownersLow = new long[INITIAL_CAPACITY];
+    private int[] remaining = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param highestFirst true for bids, where the highest price is best
+     */
+    OrderQueue(boolean highestFirst) {
+        this.highestFirst = highestFirst;
+    }
+
+    void add(long id, UUID owner, long price, int amount) {
+        ensureCapacity(size + 1);
+        int position = insertionPoint(price);
+        int moved = size - position;
+        System.arraycopy(prices, position, prices, position + 1, moved);
+        System.arraycopy(ids, position, ids, position + 1, moved);
+        System.arraycopy(ownersHigh, position, ownersHigh, position + 1, moved);
+        System.arraycopy(ownersLow, position, ownersLow, position + 1, moved);
+        System.arraycopy(remaining, position, remaining, position + 1, moved);
+
+        prices[position] = price;
+        ids[position] = id;
+        ownersHigh[position] = owner.getMostSignificantBits();
+        ownersLow[position] = owner.getLeastSignificantBits();
+        remaining[position] = amount;
+        size++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bestPrice() {
+        return prices[size - 1];
+    }
+
+    long bestId() {
+        return ids[size - 1];
+    }
+
+    UUID bestOwner() {
+        return owner(size - 1);
+    }
+
+    int bestRemaining() {
+        return remaining[size - 1];
+    }
+
+    /**
+     * Takes a fill off the best order, dropping it once it is complete.
+     */
+    void fillBest(int amount) {
+        int best = size - 1;
+        remaining[best] -= amount;
+        if (remaining[best] <= 0) size--;
+    }
+
+    /**
+     * @return the index of the order, or -1 if it is not in this queue
+     */
+    int indexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    long priceAt(int index) {
+        return prices[index];
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    UUID ownerAt(int index) {
+        return owner(index);
+    }
+
+    int remainingAt(int index) {
+        return remaining[index];
+    }
+
+    void removeAt(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(prices, index + 1, prices, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(ownersHigh, index + 1, ownersHigh, index, moved);
+        System.arraycopy(ownersLow, index + 1, ownersLow, index, moved);
+        System.arraycopy(remaining, index + 1, remaining, index, moved);
+        size--;
+    }
+
+    private UUID owner(int index) {
+        return new UUID(ownersHigh[index], ownersLow[index]);
+    }
+
+    /**
+     * First position whose price is at least as good as {@code price}, so a new order goes
+     * below the existing ones at its price and fills after them.
+     */
+    private int insertionPoint(long price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (!isBetter(price, prices[middle])) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean isBetter(long price, long other) {
+        return highestFirst ? price > other : price < other;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= prices.length) return;
+        int newCapacity = Math.max(required, prices.length * 2);
+        prices = Arrays.copyOf(prices, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        ownersHigh = Arrays.copyOf(ownersHigh, newCapacity);
+        ownersLow = Arrays.copyOf(ownersLow, newCapacity);
+        remaining = Arrays.copyOf(remaining, newCapacity);
+    }
+}
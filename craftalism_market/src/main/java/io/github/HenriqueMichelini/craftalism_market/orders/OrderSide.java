@@ -0,0 +1,11 @@
+package io.github.HenriqueMichelini.craftalism_market.orders;
+
+/**
+ * Which way a standing limit order trades.
+ */
+public enum OrderSide {
+    /** Buys while the price is at or below the limit; the limit price is escrowed per unit. */
+    BUY,
+    /** Sells while the price is at or above the limit; the items are escrowed. */
+    SELL
+}
@@ -0,0 +1,142 @@
+package io.github.HenriqueMichelini.craftalism_market.stock;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary min-heap of items keyed by their next update time.
+ * <p>
+ * Each item's heap position is indexed, so membership checks are O(1) and
+ * scheduling, rescheduling and removal are O(log n). Keys are captured when an
+ * item is scheduled; always reschedule through this class rather than calling
+ * {@link MarketItem#setNextUpdateTime} directly on a queued item.
+ */
+public class ActiveItemHeap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<MarketItem, Integer> positions = new HashMap<>();
+    private MarketItem[] items = new MarketItem[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Schedules the item at the given time, moving it if it is already queued.
+     */
+    public void schedule(MarketItem item, long nextUpdateTime) {
+        item.setNextUpdateTime(nextUpdateTime);
+        Integer position = positions.get(item);
+
+        if (position == null) {
+            ensureCapacity(size + 1);
+            items[size] = item;
+            keys[size] = nextUpdateTime;
+            positions.put(item, size);
+            siftUp(size++);
+            return;
+        }
+
+        long oldKey = keys[position];
+        keys[position] = nextUpdateTime;
+        if (nextUpdateTime < oldKey) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * @return true if the item was queued
+     */
+    public boolean remove(MarketItem item) {
+        Integer position = positions.remove(item);
+        if (position == null) return false;
+
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+        items[last] = null;
+        return true;
+    }
+
+    public MarketItem peek() {
+        return size == 0 ? null : items[0];
+    }
+
+    /**
+     * @return the earliest scheduled time, or {@link Long#MAX_VALUE} when empty
+     */
+    public long peekTime() {
+        return size == 0 ? Long.MAX_VALUE : keys[0];
+    }
+
+    public MarketItem poll() {
+        if (size == 0) return null;
+        MarketItem head = items[0];
+        remove(head);
+        return head;
+    }
+
+    public boolean contains(MarketItem item) {
+        return positions.containsKey(item);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int position) {
+        MarketItem item = items[position];
+        long key = keys[position];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            move(parent, position);
+            position = parent;
+        }
+        place(item, key, position);
+    }
+
+    private void siftDown(int position) {
+        MarketItem item = items[position];
+        long key = keys[position];
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) child = right;
+            if (key <= keys[child]) break;
+            move(child, position);
+            position = child;
+        }
+        place(item, key, position);
+    }
+
+    private void move(int from, int to) {
+        place(items[from], keys[from], to);
+    }
+
+    private void place(MarketItem item, long key, int position) {
+        items[position] = item;
+        keys[position] = key;
+        positions.put(item, position);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= items.length) return;
+        int newCapacity = Math.max(required, items.length * 2);
+        items = Arrays.copyOf(items, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.HenriqueMichelini.craftalism_market.stock;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * How regenerating items are brought back towards their base stock.
+ */
+public enum RegenerationMode {
+    /** A repeating task sweeps every due item on the main thread. */
+    SYNC,
+    /** The sweep snapshots due items on the main thread and computes them on a worker thread. */
+    ASYNC,
+    /** No sweep; an item is settled from its elapsed time when it is traded, viewed or saved. */
+    LAZY;
+
+    private static final Logger LOGGER = Logger.getLogger(RegenerationMode.class.getName());
+
+    public static RegenerationMode fromConfig(String value) {
+        if (value == null) return SYNC;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unknown stock regeneration mode '" + value + "', using sync");
+            return SYNC;
+        }
+    }
+}
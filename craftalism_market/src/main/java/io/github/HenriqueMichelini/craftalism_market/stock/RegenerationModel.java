@@ -0,0 +1,86 @@
+package io.github.HenriqueMichelini.craftalism_market.stock;
+
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+
+/**
+ * Pure stock regeneration rules, shared by the periodic sweep and by catch-up
+ * after missed intervals.
+ */
+public final class RegenerationModel {
+    private static final double MIN_REGEN_RATE = 0.01;
+    private static final long MIN_PRICE = 100;
+
+    private RegenerationModel() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Signed stock change applied by a single regeneration interval.
+     * Moves at least one unit towards base and never overshoots it.
+     */
+    public static int adjustment(int base, int current, double regenRate) {
+        double rate = Math.max(regenRate, MIN_REGEN_RATE);
+
+        int delta = base - current;
+        int maxAdjustment;
+
+        if (delta > 0) {
+            maxAdjustment = (int) Math.round(base * rate);
+        } else {
+            maxAdjustment = (int) Math.round(current * rate);
+        }
+
+        int absDelta = Math.abs(delta);
+        int absAdjustment = Math.min(maxAdjustment, absDelta);
+        absAdjustment = Math.max(1, absAdjustment);
+        return delta > 0 ? absAdjustment : -absAdjustment;
+    }
+
+    /**
+     * Stock after {@code intervals} regeneration steps, without replaying them one by one.
+     * <p>
+     * Below base the step size is fixed by the base stock, so the result is closed-form.
+     * Above base the step shrinks with the stock and is iterated, but the loop ends as soon as
+     * base is reached, so its cost depends on the surplus rather than on the number of intervals.
+     */
+    public static int stockAfterIntervals(int base, int current, double regenRate, long intervals) {
+        if (intervals <= 0 || current == base || base == 0) return current;
+
+        if (current < base) {
+            long step = adjustment(base, current, regenRate);
+            long regenerated = current + Math.min((long) base - current, step * Math.min(intervals, base));
+            return (int) regenerated;
+        }
+
+        int stock = current;
+        for (long i = 0; i < intervals && stock != base; i++) {
+            stock += adjustment(base, stock, regenRate);
+        }
+        return stock;
+    }
+
+    /**
+     * Price after the market absorbs a stock change: the inverse of the trade price move.
+     */
+    public static long priceAfter(long price, long variation, int adjustment) {
+        if (adjustment == 0) return Math.max(MIN_PRICE, price);
+
+        long step = Math.max(variation, 1L);
+        long transactionMultiplier = adjustment > 0 ?
+                PricingEngine.SCALE + step :
+                PricingEngine.SCALE - step;
+
+        long reverseMultiplier = PricingEngine.reverseMultiplier(transactionMultiplier, Math.abs(adjustment));
+        return Math.max(MIN_PRICE, PricingEngine.mulScaled(price, reverseMultiplier));
+    }
+
+    /**
+     * One regeneration interval computed from a detached snapshot; safe to call off the main thread.
+     */
+    public static RegenerationResult regenerate(RegenerationSnapshot snapshot) {
+        int adjustment = adjustment(snapshot.baseStock(), snapshot.currentStock(), snapshot.regenerationRate());
+        long newPrice = priceAfter(snapshot.currentPrice(), snapshot.priceVariation(), adjustment);
+        int newStock = Math.max(0, Math.min(snapshot.currentStock() + adjustment, snapshot.maxStock()));
+        return new RegenerationResult(snapshot, newStock, newPrice);
+    }
+}
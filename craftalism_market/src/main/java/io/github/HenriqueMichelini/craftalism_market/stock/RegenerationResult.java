@@ -0,0 +1,19 @@
+package io.github.HenriqueMichelini.craftalism_market.stock;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+/**
+ * Stock and price an item should move to, computed from a {@link RegenerationSnapshot}.
+ */
+public record RegenerationResult(RegenerationSnapshot snapshot, int newStock, long newPrice) {
+
+    /**
+     * @return true if the item still holds the state the result was computed from (main thread only)
+     */
+    public boolean isCurrent() {
+        MarketItem item = snapshot.item();
+        return item.getCurrentStock() == snapshot.currentStock()
+                && item.getCurrentPrice() == snapshot.currentPrice()
+                && item.getBaseStock() == snapshot.baseStock();
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.HenriqueMichelini.craftalism_market.stock;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+/**
+ * Immutable copy of the item state one regeneration interval depends on.
+ * The item reference is only an identity for applying the result back on the main thread.
+ */
+public record RegenerationSnapshot(
+        MarketItem item,
+        int baseStock,
+        int currentStock,
+        long currentPrice,
+        long priceVariation,
+        double regenerationRate,
+        int maxStock
+) {
+}
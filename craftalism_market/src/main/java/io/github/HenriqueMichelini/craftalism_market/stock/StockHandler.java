@@ -4,27 +4,39 @@ import io.github.HenriqueMichelini.craftalism_economy.economy.util.MoneyFormat;
 import io.github.HenriqueMichelini.craftalism_market.config.ConfigManager;
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
 import io.github.HenriqueMichelini.craftalism_market.stock.listener.StockUpdateListener;
+import io.github.HenriqueMichelini.craftalism_market.storage.JournalRecord;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class StockHandler {
     private static final Logger LOGGER = Logger.getLogger(StockHandler.class.getName());
-    private final PriorityQueue<MarketItem> activeItemsQueue = new PriorityQueue<>(Comparator.comparingLong(MarketItem::getNextUpdateTime));
-    private final Set<MarketItem> activeItemsSet = new HashSet<>();
+    private final ActiveItemHeap activeItems = new ActiveItemHeap();
     private final List<StockUpdateListener> listeners = new ArrayList<>();
+    private final Set<MarketItem> pendingNotifications = new LinkedHashSet<>();
+    private final Executor notificationExecutor;
     private final ConfigManager configManager;
     private final MoneyFormat moneyFormat;
+    private final RegenerationMode regenerationMode;
     private final long DECIMAL_SCALE = MoneyFormat.DECIMAL_SCALE;
 
     private static final long MINUTE_IN_MILLIS = 60 * 1000L;
 
     public StockHandler(ConfigManager configManager, MoneyFormat moneyFormat) {
+        this(configManager, moneyFormat, Runnable::run);
+    }
+
+    /**
+     * @param notificationExecutor runs the listener flush; pass one that defers to the next
+     *                             main-thread tick so changes within a tick are coalesced
+     */
+    public StockHandler(ConfigManager configManager, MoneyFormat moneyFormat, Executor notificationExecutor) {
+        this.notificationExecutor = Objects.requireNonNull(notificationExecutor, "Notification executor cannot be null");
         this.configManager = Objects.requireNonNull(configManager, "ConfigManager cannot be null");
         this.moneyFormat = moneyFormat;
+        this.regenerationMode = configManager.getRegenerationMode();
         if (configManager.getStockUpdateInterval() <= 0) {
             LOGGER.warning("Invalid stock update interval, using default of 5 minutes");
             configManager.setStockUpdateInterval(5);
@@ -34,7 +46,7 @@ public class StockHandler {
 
     private void initializeActiveItems() {
         long now = System.currentTimeMillis();
-        long intervalMillis = configManager.getStockUpdateInterval() * MINUTE_IN_MILLIS;
+        long intervalMillis = getIntervalMillis();
 
         configManager.getItems().values().forEach(item -> {
             if (item.getCurrentStock() != item.getBaseStock()) {
@@ -45,73 +57,164 @@ public class StockHandler {
                         markItemForUpdate(item);
                     }
                 } else {
-                    item.setNextUpdateTime(storedNextUpdateTime);
-                    activeItemsQueue.add(item);
-                    activeItemsSet.add(item);
+                    scheduleAt(item, storedNextUpdateTime);
                 }
             }
         });
     }
 
+    /**
+     * Applies every interval missed while the server was down in one step: one price
+     * computation, one history entry and one notification per item, however long the downtime.
+     */
     private void processMissedIntervals(MarketItem item, long now, long intervalMillis) {
-        int delta = item.getBaseStock() - item.getCurrentStock();
-        if (delta == 0) return;
+        int base = item.getBaseStock();
+        int current = item.getCurrentStock();
+        if (current == base || base == 0) return;
 
         long overdueMillis = now - item.getNextUpdateTime();
-        int intervalsPassed = (int) (overdueMillis / intervalMillis) + 1;
+        long intervalsPassed = overdueMillis / intervalMillis + 1;
 
-        for (int i = 0; i < intervalsPassed; i++) {
-            if (item.getCurrentStock() == item.getBaseStock()) break;
-            processItemStock(item);
-        }
+        int regenerated = RegenerationModel.stockAfterIntervals(base, current, item.getStockRegenerationRate(), intervalsPassed);
+        LOGGER.fine(() -> String.format(
+                "Catching up %d missed intervals for %s: %d → %d",
+                intervalsPassed, item.getName(), current, regenerated
+        ));
+        updateStockAndPrice(item, base, regenerated);
     }
 
     public void addStockUpdateListener(StockUpdateListener listener) {
         listeners.add(listener);
     }
 
+    /**
+     * Queues the item for the next listener flush; repeated changes to one item are delivered once.
+     */
     private void notifyStockUpdated(MarketItem item) {
-        new ArrayList<>(listeners).forEach(listener -> listener.onStockUpdated(item));
+        boolean flushScheduled = !pendingNotifications.isEmpty();
+        pendingNotifications.add(item);
+        if (!flushScheduled) {
+            notificationExecutor.execute(this::flushNotifications);
+        }
     }
 
-    public void getUpdateIntervalMinutes() {
-        configManager.getStockUpdateInterval();
+    /**
+     * Queues changes made outside the stock handler, such as cleared trades, for the next listener flush.
+     */
+    public void notifyItemsUpdated(Collection<MarketItem> items) {
+        items.forEach(this::notifyStockUpdated);
     }
 
+    /**
+     * Delivers every pending change to the listeners as one batch.
+     */
+    public void flushNotifications() {
+        if (pendingNotifications.isEmpty()) return;
+
+        List<MarketItem> changed = List.copyOf(pendingNotifications);
+        pendingNotifications.clear();
+        new ArrayList<>(listeners).forEach(listener -> listener.onStocksUpdated(changed));
+    }
+
+    public RegenerationMode getRegenerationMode() {
+        return regenerationMode;
+    }
+
+    /**
+     * Brings a lazily regenerated item up to date with the time elapsed since it was last settled.
+     * Call before trading, displaying or saving the item; a no-op outside {@link RegenerationMode#LAZY}.
+     */
+    public void settle(MarketItem item) {
+        if (regenerationMode != RegenerationMode.LAZY) return;
+
+        long now = System.currentTimeMillis();
+        int base = item.getBaseStock();
+        int current = item.getCurrentStock();
+        if (current == base || base == 0 || item.getNextUpdateTime() > now) return;
+
+        long intervalMillis = getIntervalMillis();
+        long intervalsPassed = (now - item.getNextUpdateTime()) / intervalMillis + 1;
+        int regenerated = RegenerationModel.stockAfterIntervals(base, current, item.getStockRegenerationRate(), intervalsPassed);
+
+        // Advance the clock first so listeners that read the item while it updates see it as settled
+        item.setNextUpdateTime(item.getNextUpdateTime() + intervalsPassed * intervalMillis);
+        updateStockAndPrice(item, base, regenerated);
+    }
+
+    /**
+     * Settles every item, e.g. before the market is saved.
+     */
+    public void settleAll() {
+        if (regenerationMode != RegenerationMode.LAZY) return;
+        configManager.getItems().values().forEach(this::settle);
+    }
+
+    /**
+     * Schedules the item's next regeneration step, replacing any pending one in O(log n).
+     */
     public void markItemForUpdate(MarketItem item) {
-        synchronized (activeItemsSet) {
+        markItemForUpdate(item, System.currentTimeMillis());
+    }
+
+    private void markItemForUpdate(MarketItem item, long now) {
+        synchronized (activeItems) {
             if (item.getCurrentStock() == item.getBaseStock()) return;
 
-            long intervalMillis = configManager.getStockUpdateInterval() * 1000L;
-//            long intervalMillis = configManager.getStockUpdateInterval() * 60 * 1000L;
-            long nextUpdate = System.currentTimeMillis() + intervalMillis;
+            long nextUpdate = now + getIntervalMillis();
 
-            if (activeItemsSet.contains(item)) {
-                activeItemsQueue.remove(item);
-                activeItemsSet.remove(item);
-            }
+            scheduleAt(item, nextUpdate);
+        }
+    }
 
+    private void scheduleAt(MarketItem item, long nextUpdate) {
+        // Lazy items only need their clock; nothing sweeps the heap
+        if (regenerationMode == RegenerationMode.LAZY) {
             item.setNextUpdateTime(nextUpdate);
-            activeItemsQueue.add(item);
-            activeItemsSet.add(item);
+            return;
+        }
+        activeItems.schedule(item, nextUpdate);
+    }
+
+    private long getMaxScheduleAheadMillis() {
+        return getIntervalMillis() * 2;
+    }
+
+    /**
+     * The configured stock update interval, which is in minutes, as used by the live schedule,
+     * the lazy settle and the catch-up after downtime.
+     */
+    private long getIntervalMillis() {
+        return configManager.getStockUpdateInterval() * MINUTE_IN_MILLIS;
+    }
+
+    /**
+     * @return number of items currently scheduled for regeneration
+     */
+    public int getActiveItemCount() {
+        synchronized (activeItems) {
+            return activeItems.size();
         }
     }
 
     public void processAllActiveItems() {
-        long now = System.currentTimeMillis();
-        while (!activeItemsQueue.isEmpty()) {
-            MarketItem item = activeItemsQueue.peek();
-            if (item.getNextUpdateTime() > now + (configManager.getStockUpdateInterval() * MINUTE_IN_MILLIS * 2)) {
-                activeItemsQueue.remove(item);
-                activeItemsSet.remove(item);
-                markItemForUpdate(item);
+        processAllActiveItems(System.currentTimeMillis());
+    }
+
+    /**
+     * Processes every item due at {@code now}; items are rescheduled relative to the same instant.
+     */
+    public void processAllActiveItems(long now) {
+        while (!activeItems.isEmpty()) {
+            MarketItem item = activeItems.peek();
+            if (activeItems.peekTime() > now + getMaxScheduleAheadMillis()) {
+                activeItems.remove(item);
+                markItemForUpdate(item, now);
                 continue;
             }
 
-            if (item.getNextUpdateTime() > now) break;
+            if (activeItems.peekTime() > now) break;
 
-            activeItemsQueue.poll();
-            activeItemsSet.remove(item);
+            activeItems.poll();
             try {
                 processItemStock(item);
             } catch (Exception e) {
@@ -119,7 +222,7 @@ public class StockHandler {
             }
 
             if (item.getCurrentStock() != item.getBaseStock()) {
-                markItemForUpdate(item);
+                markItemForUpdate(item, now);
             }
         }
     }
@@ -144,22 +247,7 @@ public class StockHandler {
     }
 
     private int calculateSafeAdjustment(MarketItem item, int base, int current) {
-        double minRegen = 0.01;
-        double regenRate = Math.max(item.getStockRegenerationRate(), minRegen);
-
-        int delta = base - current;
-        int maxAdjustment;
-
-        if (delta > 0) {
-            maxAdjustment = (int) Math.round(base * regenRate);
-        } else {
-            maxAdjustment = (int) Math.round(current * regenRate);
-        }
-
-        int absDelta = Math.abs(delta);
-        int absAdjustment = Math.min(maxAdjustment, absDelta);
-        absAdjustment = Math.max(1, absAdjustment);
-        int adjustment = delta > 0 ? absAdjustment : -absAdjustment;
+        int adjustment = RegenerationModel.adjustment(base, current, item.getStockRegenerationRate());
 
         logCalculateSafeAdjustment(item.getName(), base, current, item.getStockRegenerationMultiplier(), adjustment);
 
@@ -175,40 +263,16 @@ public class StockHandler {
     }
 
     private long calculateNewPrice(MarketItem item, int adjustment) {
-        if (adjustment == 0) return Math.max(100, item.getCurrentPrice());
-
-        long reverseMultiplier = getReverseMultiplier(item, adjustment, adjustment > 0);
-        LOGGER.fine("Reverse multiplier: " + reverseMultiplier);
-        long newPrice = (item.getCurrentPrice() * reverseMultiplier) / DECIMAL_SCALE;
-
-        return Math.max(100, newPrice);
+        return RegenerationModel.priceAfter(item.getCurrentPrice(), item.getPriceVariationPerOperation(), adjustment);
     }
 
-    private long getReverseMultiplier(MarketItem item, int adjustment, boolean isAddingStock) {
-        long variation = item.getPriceVariationPerOperation();
-        int steps = Math.abs(adjustment);
-
-        variation = Math.max(variation, 1L);
-
-        long transactionMultiplier = isAddingStock ?
-                DECIMAL_SCALE + variation :
-                DECIMAL_SCALE - variation;
-
-        BigDecimal stepMultiplier = BigDecimal.valueOf(DECIMAL_SCALE)
-                .divide(BigDecimal.valueOf(transactionMultiplier), 10, RoundingMode.HALF_UP);
-        BigDecimal totalMultiplier = BigDecimal.valueOf(DECIMAL_SCALE);
-
-        for (int i = 0; i < steps; i++) {
-            totalMultiplier = totalMultiplier.multiply(stepMultiplier);
-        }
-
-        return totalMultiplier.setScale(0, RoundingMode.HALF_UP).longValue();
+    private int clampStockToBounds(int base, int newStock) {
+        return Math.max(0, Math.min(newStock, getMaxStock(base)));
     }
 
-    private int clampStockToBounds(int base, int newStock) {
+    private int getMaxStock(int base) {
         double maxOverflow = configManager.getMaxStockOverflow();
-        int maxStock = (int) (base * maxOverflow);
-        return Math.max(0, Math.min(newStock, maxStock));
+        return (int) (base * maxOverflow);
     }
 
     private void logStockUpdate(MarketItem item, int oldStock, long oldPrice, int newStock, long newPrice) {
@@ -225,13 +289,72 @@ public class StockHandler {
     private void updateItemState(MarketItem item, int newStock, long newPrice) {
         int oldStock = item.getCurrentStock();
         long oldPrice = item.getCurrentPrice();
+        applyItemState(item, newStock, newPrice);
+        logStockUpdate(item, oldStock, oldPrice, newStock, newPrice);
+    }
+
+    private void applyItemState(MarketItem item, int newStock, long newPrice) {
+        int adjustment = newStock - item.getCurrentStock();
         item.setCurrentStock(newStock);
         item.setCurrentPrice(newPrice);
-        item.getPriceHistory().add(newPrice);
-        logStockUpdate(item, oldStock, oldPrice, newStock, newPrice);
+        item.recordPrice(newPrice);
+        item.getCandles().record(System.currentTimeMillis(), newPrice, 0);
+        configManager.getJournal().append(JournalRecord.Type.REGENERATION, item, adjustment);
         notifyStockUpdated(item);
     }
 
+    /**
+     * Removes every item due at {@code now} from the schedule and captures the state its
+     * regeneration depends on. Main thread only; the snapshots can then be computed anywhere.
+     */
+    public List<RegenerationSnapshot> pollDueSnapshots(long now) {
+        List<RegenerationSnapshot> snapshots = new ArrayList<>();
+        synchronized (activeItems) {
+            while (!activeItems.isEmpty()) {
+                MarketItem item = activeItems.peek();
+                if (activeItems.peekTime() > now + getMaxScheduleAheadMillis()) {
+                    activeItems.remove(item);
+                    markItemForUpdate(item, now);
+                    continue;
+                }
+
+                if (activeItems.peekTime() > now) break;
+
+                activeItems.poll();
+                int base = item.getBaseStock();
+                if (item.getCurrentStock() == base || base == 0) continue;
+
+                snapshots.add(new RegenerationSnapshot(
+                        item,
+                        base,
+                        item.getCurrentStock(),
+                        item.getCurrentPrice(),
+                        item.getPriceVariationPerOperation(),
+                        item.getStockRegenerationRate(),
+                        getMaxStock(base)
+                ));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Swaps in regeneration results computed off the main thread. Results for items that
+     * changed since their snapshot (e.g. were traded) are dropped without rescheduling, so the
+     * next update time the trade set is kept.
+     */
+    public void applyRegenerationResults(List<RegenerationResult> results, long now) {
+        for (RegenerationResult result : results) {
+            if (!result.isCurrent()) continue;
+
+            MarketItem item = result.snapshot().item();
+            applyItemState(item, result.newStock(), result.newPrice());
+            if (item.getCurrentStock() != item.getBaseStock()) {
+                markItemForUpdate(item, now);
+            }
+        }
+    }
+
     private void logUpgradeBaseStock(String itemName, long oldBaseStock, long newBaseStock, long increaseNumber, long newVariation) {
         LOGGER.info(() -> String.format(
                 "%s | Stock upgrade: %d → %d (+%d) | New Variation: %.4f%%",
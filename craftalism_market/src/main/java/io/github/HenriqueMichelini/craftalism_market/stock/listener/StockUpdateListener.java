@@ -2,6 +2,16 @@ package io.github.HenriqueMichelini.craftalism_market.stock.listener;
 
 import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
 
+import java.util.Collection;
+
 public interface StockUpdateListener {
     void onStockUpdated(MarketItem item);
+
+    /**
+     * Receives every item that changed during one tick, each exactly once.
+     * Override to do per-batch work instead of per-item work.
+     */
+    default void onStocksUpdated(Collection<MarketItem> items) {
+        items.forEach(this::onStockUpdated);
+    }
 }
@@ -0,0 +1,40 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Whole-file replacement that never leaves a half-written file behind.
+ */
+public final class AtomicFiles {
+    private AtomicFiles() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Writes the bytes to a sibling temporary file, then renames it over the target.
+     */
+    public static void write(Path target, byte[] data) throws IOException {
+        Path temp = temporaryFor(target);
+        Files.write(temp, data);
+        replace(temp, target);
+    }
+
+    public static Path temporaryFor(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Renames {@code source} over {@code target}, atomically where the file system allows it.
+     */
+    public static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
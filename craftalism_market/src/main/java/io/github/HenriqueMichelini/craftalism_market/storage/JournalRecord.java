@@ -0,0 +1,59 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+/**
+ * One journaled market event. Records carry the item's resulting stock and price rather than
+ * a delta, but applying one also appends to the item's price history and candles, so a record
+ * must be applied at most once: replay skips every record the snapshot already covers.
+ */
+public record JournalRecord(
+        Type type,
+        long sequence,
+        long timestamp,
+        String material,
+        int amount,
+        int currentStock,
+        int baseStock,
+        long currentPrice,
+        long priceVariation,
+        double stockRegenerationRate
+) {
+    public enum Type {
+        BUY,
+        SELL,
+        REGENERATION
+    }
+
+    /**
+     * Captures the item's current state as the outcome of an event.
+     */
+    public static JournalRecord of(Type type, long sequence, long timestamp, MarketItem item, int amount) {
+        return new JournalRecord(
+                type,
+                sequence,
+                timestamp,
+                item.getMaterial().name(),
+                amount,
+                item.getCurrentStock(),
+                item.getBaseStock(),
+                item.getCurrentPrice(),
+                item.getPriceVariationPerOperation(),
+                item.getStockRegenerationRate()
+        );
+    }
+
+    /**
+     * Restores the recorded state onto the item and appends the event to its price history
+     * and candles. Not idempotent.
+     */
+    public void applyTo(MarketItem item) {
+        item.setCurrentStock(currentStock);
+        item.setBaseStock(baseStock);
+        item.setCurrentPrice(currentPrice);
+        item.setPriceVariationPerOperation(priceVariation);
+        item.setStockRegenerationRate(stockRegenerationRate);
+        item.recordPrice(currentPrice);
+        item.getCandles().record(timestamp, currentPrice, type == Type.REGENERATION ? 0 : amount);
+    }
+}
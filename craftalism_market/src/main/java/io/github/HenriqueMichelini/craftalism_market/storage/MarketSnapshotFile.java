@@ -0,0 +1,235 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Versioned binary image of the market, written after every save and preferred over
+ * items.yml on enable while it is the newer of the two. items.yml remains the
+ * human-editable seed: editing it makes it newer, so it is parsed instead.
+ * <p>
+ * Layout: a fixed header, one fixed-width record per item, a string table (length-prefixed
+ * UTF-8, deduplicated) and a block of price history longs. Records refer to strings and
+ * history by offset, so loading is one read into a heap buffer and a single pass over it with
+ * no per-value parsing or boxing. The file is not memory-mapped: a live mapping would stop the
+ * next save from replacing it on Windows.
+ */
+public class MarketSnapshotFile {
+    private static final Logger LOGGER = Logger.getLogger(MarketSnapshotFile.class.getName());
+    private static final int MAGIC = 0x4D4B5453; // "MKTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    private static final int RECORD_BYTES = 4 * Integer.BYTES + 4 * Long.BYTES + 4 * Integer.BYTES
+            + 4 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final File file;
+
+    public MarketSnapshotFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return true if the snapshot exists and was written after the given seed file changed
+     */
+    public boolean isNewerThan(File seed) {
+        return file.exists() && seed.exists() && file.lastModified() > seed.lastModified();
+    }
+
+    /**
+     * @return the snapshot contents, or null if it is missing, of another version, or damaged
+     */
+    public MarketStore.Loaded load() {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + size + " bytes");
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("Snapshot truncated while reading");
+            }
+            return read(buffer.flip());
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Failed to load market snapshot; falling back to items.yml", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes every item's state, replacing the previous snapshot. Safe to call off the main thread.
+     *
+     * @return true if the snapshot was written
+     */
+    public boolean write(Map<String, MarketItemSnapshot> items, long journalSequence) {
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        ByteBuffer strings = ByteBuffer.allocate(64);
+        int historyLongs = 0;
+
+        for (Map.Entry<String, MarketItemSnapshot> entry : items.entrySet()) {
+            strings = intern(entry.getKey(), stringOffsets, strings);
+            strings = intern(entry.getValue().material(), stringOffsets, strings);
+            strings = intern(categoryOf(entry.getValue()), stringOffsets, strings);
+            historyLongs += entry.getValue().priceHistory().length;
+        }
+
+        int recordsOffset = HEADER_BYTES;
+        int stringsOffset = recordsOffset + items.size() * RECORD_BYTES;
+        int historyOffset = stringsOffset + strings.position();
+        ByteBuffer out = ByteBuffer.allocate(historyOffset + historyLongs * Long.BYTES);
+
+        out.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(items.size())
+                .putInt(RECORD_BYTES)
+                .putLong(journalSequence)
+                .putInt(stringsOffset)
+                .putInt(historyOffset);
+
+        int historyIndex = 0;
+        for (Map.Entry<String, MarketItemSnapshot> entry : items.entrySet()) {
+            MarketItemSnapshot item = entry.getValue();
+            out.putInt(stringOffsets.get(entry.getKey()))
+                    .putInt(stringOffsets.get(item.material()))
+                    .putInt(stringOffsets.get(categoryOf(item)))
+                    .putInt(item.slot())
+                    .putLong(item.basePrice())
+                    .putLong(item.currentPrice())
+                    .putLong(item.priceVariation())
+                    .putDouble(item.taxRate())
+                    .putInt(item.originalStock())
+                    .putInt(item.baseStock())
+                    .putInt(item.currentStock())
+                    .putInt(item.stockSurplus())
+                    .putDouble(item.stockRegenerationMultiplier())
+                    .putDouble(item.stockRegenerationRate())
+                    .putLong(item.nextUpdateTime())
+                    .putLong(item.lastActivity())
+                    .putInt(historyIndex)
+                    .putInt(item.priceHistory().length);
+            historyIndex += item.priceHistory().length;
+        }
+
+        out.put(strings.flip());
+        for (MarketItemSnapshot item : items.values()) {
+            for (long price : item.priceHistory()) {
+                out.putLong(price);
+            }
+        }
+
+        try {
+            AtomicFiles.write(file.toPath(), out.array());
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to write market snapshot", e);
+            return false;
+        }
+    }
+
+    private MarketStore.Loaded read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOGGER.warning("Ignoring market snapshot of an unknown format");
+            return null;
+        }
+        int itemCount = buffer.getInt();
+        if (buffer.getInt() != RECORD_BYTES) {
+            LOGGER.warning("Ignoring market snapshot with an unexpected record size");
+            return null;
+        }
+        long journalSequence = buffer.getLong();
+        int stringsOffset = buffer.getInt();
+        int historyOffset = buffer.getInt();
+
+        Map<String, MarketItem> items = new LinkedHashMap<>();
+        for (int i = 0; i < itemCount; i++) {
+            String key = readString(buffer, stringsOffset + buffer.getInt());
+            String materialName = readString(buffer, stringsOffset + buffer.getInt());
+            String category = readString(buffer, stringsOffset + buffer.getInt());
+            int slot = buffer.getInt();
+            long basePrice = buffer.getLong();
+            long currentPrice = buffer.getLong();
+            long priceVariation = buffer.getLong();
+            double taxRate = buffer.getDouble();
+            int originalStock = buffer.getInt();
+            int baseStock = buffer.getInt();
+            int currentStock = buffer.getInt();
+            int stockSurplus = buffer.getInt();
+            double regenerationMultiplier = buffer.getDouble();
+            double regenerationRate = buffer.getDouble();
+            long nextUpdateTime = buffer.getLong();
+            long lastActivity = buffer.getLong();
+            int historyIndex = buffer.getInt();
+            int historyCount = buffer.getInt();
+
+            Material material = Material.getMaterial(materialName);
+            if (material == null) {
+                LOGGER.warning("Skipping snapshot item with unknown material: " + materialName);
+                continue;
+            }
+
+            long[] history = new long[historyCount];
+            int historyStart = historyOffset + historyIndex * Long.BYTES;
+            for (int h = 0; h < historyCount; h++) {
+                history[h] = buffer.getLong(historyStart + h * Long.BYTES);
+            }
+
+            MarketItemSnapshot snapshot = new MarketItemSnapshot(
+                    materialName,
+                    category,
+                    slot,
+                    basePrice,
+                    currentPrice,
+                    priceVariation,
+                    taxRate,
+                    originalStock,
+                    baseStock,
+                    currentStock,
+                    regenerationMultiplier,
+                    regenerationRate,
+                    nextUpdateTime,
+                    stockSurplus,
+                    lastActivity,
+                    history
+            );
+            items.put(key, snapshot.toMarketItem(material));
+        }
+        return new MarketStore.Loaded(items, journalSequence);
+    }
+
+    private static String categoryOf(MarketItemSnapshot item) {
+        return item.category() == null ? "" : item.category();
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        int length = Short.toUnsignedInt(buffer.getShort(offset));
+        byte[] bytes = new byte[length];
+        buffer.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer intern(String value, Map<String, Integer> offsets, ByteBuffer strings) {
+        if (offsets.containsKey(value)) return strings;
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("String too long for snapshot: " + value);
+        if (strings.remaining() < Short.BYTES + bytes.length) {
+            int capacity = Math.max(strings.capacity() * 2, strings.position() + Short.BYTES + bytes.length);
+            strings = ByteBuffer.allocate(capacity).put(strings.flip());
+        }
+        offsets.put(value, strings.position());
+        strings.putShort((short) bytes.length).put(bytes);
+        return strings;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistent home of item state and trade history.
+ * <p>
+ * {@link #load} runs on the main thread while the plugin enables. Every other method is only
+ * called from the single storage thread owned by the config manager, so implementations
+ * need no locking of their own.
+ */
+public interface MarketStore {
+    /**
+     * Loaded market state and the journal sequence it covers.
+     */
+    record Loaded(Map<String, MarketItem> items, long journalSequence) {}
+
+    /**
+     * @return the stored items, or null when the store holds nothing usable and the
+     *         market should be seeded from items.yml
+     */
+    Loaded load();
+
+    /**
+     * Persists the given items; items not in the map keep their stored state.
+     *
+     * @param journalSequence the last journal record reflected in the items
+     * @return true if the items are durably stored
+     */
+    boolean saveItems(Map<String, MarketItemSnapshot> items, long journalSequence);
+
+    void recordTrades(List<TradeRecord> trades);
+
+    /**
+     * @return the player's most recent trades, newest first; empty if the store keeps no
+     *         trade history or could not answer, as opposed to an empty list for no trades
+     */
+    Optional<List<TradeRecord>> findTrades(UUID playerId, int limit);
+
+    void close();
+}
@@ -0,0 +1,37 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Item snapshots handed to a {@link MarketStore} that are not durably stored yet.
+ * <p>
+ * Items are marked clean when they are snapshotted, so a failed save would otherwise lose
+ * them: the next batch only carries items changed since. Snapshots of a failed save are kept
+ * and merged into the next one, newer snapshots replacing older. Storage thread only.
+ */
+public class PendingItemWrites {
+    private final MarketStore store;
+    private final Map<String, MarketItemSnapshot> unsaved = new HashMap<>();
+
+    public PendingItemWrites(MarketStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Saves the changed items together with every item a failed save left behind.
+     *
+     * @param journalSequence the last journal record reflected in the items
+     * @return true if every item changed up to {@code journalSequence} is stored, so the
+     *         journal may be compacted up to it
+     */
+    public boolean write(Map<String, MarketItemSnapshot> changed, long journalSequence) {
+        unsaved.putAll(changed);
+        if (!store.saveItems(new HashMap<>(unsaved), journalSequence)) return false;
+
+        unsaved.clear();
+        return true;
+    }
+}
@@ -0,0 +1,314 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores items and trades in an embedded SQLite database, using the JDBC driver bundled
+ * with the server.
+ * <p>
+ * Item saves are one transaction of batched {@code INSERT ... ON CONFLICT DO UPDATE}
+ * statements covering only the changed items. Trades go to an append-only table indexed by
+ * player and by material, so history lookups do not scan the whole ledger.
+ */
+public class SqliteMarketStore implements MarketStore {
+    private static final Logger LOGGER = Logger.getLogger(SqliteMarketStore.class.getName());
+    private static final String DRIVER = "org.sqlite.JDBC";
+    private static final String JOURNAL_SEQUENCE_KEY = "journal_sequence";
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS market_items (
+                item_key TEXT PRIMARY KEY,
+                material TEXT NOT NULL,
+                category TEXT,
+                slot INTEGER NOT NULL,
+                base_price INTEGER NOT NULL,
+                current_price INTEGER NOT NULL,
+                price_variation INTEGER NOT NULL,
+                tax_rate REAL NOT NULL,
+                original_stock INTEGER NOT NULL,
+                base_stock INTEGER NOT NULL,
+                current_stock INTEGER NOT NULL,
+                stock_regeneration_multiplier REAL NOT NULL,
+                stock_regeneration_rate REAL NOT NULL,
+                next_update_time INTEGER NOT NULL,
+                stock_surplus INTEGER NOT NULL,
+                last_activity INTEGER NOT NULL,
+                price_history BLOB NOT NULL
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS market_meta (
+                meta_key TEXT PRIMARY KEY,
+                meta_value INTEGER NOT NULL
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS market_trades (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                created_at INTEGER NOT NULL,
+                player TEXT NOT NULL,
+                material TEXT NOT NULL,
+                side TEXT NOT NULL,
+                amount INTEGER NOT NULL,
+                total_price INTEGER NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS idx_trades_player ON market_trades (player, created_at)",
+            "CREATE INDEX IF NOT EXISTS idx_trades_material ON market_trades (material, created_at)"
+    };
+
+    private static final String UPSERT_ITEM = """
+            INSERT INTO market_items (
+                item_key, material, category, slot, base_price, current_price, price_variation, tax_rate,
+                original_stock, base_stock, current_stock, stock_regeneration_multiplier,
+                stock_regeneration_rate, next_update_time, stock_surplus, last_activity, price_history
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (item_key) DO UPDATE SET
+                material = excluded.material,
+                category = excluded.category,
+                slot = excluded.slot,
+                base_price = excluded.base_price,
+                current_price = excluded.current_price,
+                price_variation = excluded.price_variation,
+                tax_rate = excluded.tax_rate,
+                original_stock = excluded.original_stock,
+                base_stock = excluded.base_stock,
+                current_stock = excluded.current_stock,
+                stock_regeneration_multiplier = excluded.stock_regeneration_multiplier,
+                stock_regeneration_rate = excluded.stock_regeneration_rate,
+                next_update_time = excluded.next_update_time,
+                stock_surplus = excluded.stock_surplus,
+                last_activity = excluded.last_activity,
+                price_history = excluded.price_history""";
+
+    private static final String UPSERT_META = """
+            INSERT INTO market_meta (meta_key, meta_value) VALUES (?, ?)
+            ON CONFLICT (meta_key) DO UPDATE SET meta_value = excluded.meta_value""";
+
+    private static final String INSERT_TRADE = """
+            INSERT INTO market_trades (created_at, player, material, side, amount, total_price)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    private static final String SELECT_PLAYER_TRADES = """
+            SELECT created_at, material, side, amount, total_price FROM market_trades
+            WHERE player = ? ORDER BY created_at DESC LIMIT ?""";
+
+    private final File databaseFile;
+    private Connection connection;
+
+    public SqliteMarketStore(File databaseFile) {
+        this.databaseFile = databaseFile;
+    }
+
+    /**
+     * @return true if the server provides the SQLite JDBC driver
+     */
+    public static boolean isDriverAvailable() {
+        try {
+            Class.forName(DRIVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Loaded load() {
+        try {
+            Connection db = getConnection();
+            Map<String, MarketItem> items = new LinkedHashMap<>();
+            try (Statement statement = db.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT * FROM market_items")) {
+                while (rows.next()) {
+                    MarketItemSnapshot snapshot = readItem(rows);
+                    Material material = Material.getMaterial(snapshot.material());
+                    if (material == null) {
+                        LOGGER.warning("Skipping stored item with unknown material: " + snapshot.material());
+                        continue;
+                    }
+                    items.put(rows.getString("item_key"), snapshot.toMarketItem(material));
+                }
+            }
+            long journalSequence = readJournalSequence(db);
+            db.commit();
+            return items.isEmpty() ? null : new Loaded(items, journalSequence);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to load market items from SQLite; seeding from items.yml", e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean saveItems(Map<String, MarketItemSnapshot> items, long journalSequence) {
+        try {
+            Connection db = getConnection();
+            try (PreparedStatement upsert = db.prepareStatement(UPSERT_ITEM);
+                 PreparedStatement meta = db.prepareStatement(UPSERT_META)) {
+                for (Map.Entry<String, MarketItemSnapshot> entry : items.entrySet()) {
+                    bindItem(upsert, entry.getKey(), entry.getValue());
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+
+                meta.setString(1, JOURNAL_SEQUENCE_KEY);
+                meta.setLong(2, journalSequence);
+                meta.executeUpdate();
+                db.commit();
+                return true;
+            } catch (SQLException e) {
+                db.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to save market items to SQLite", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void recordTrades(List<TradeRecord> trades) {
+        try {
+            Connection db = getConnection();
+            try (PreparedStatement insert = db.prepareStatement(INSERT_TRADE)) {
+                for (TradeRecord trade : trades) {
+                    insert.setLong(1, trade.timestamp());
+                    insert.setString(2, trade.playerId().toString());
+                    insert.setString(3, trade.material());
+                    insert.setString(4, trade.side().name());
+                    insert.setInt(5, trade.amount());
+                    insert.setLong(6, trade.totalPrice());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                db.commit();
+            } catch (SQLException e) {
+                db.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to record " + trades.size() + " trades to SQLite", e);
+        }
+    }
+
+    @Override
+    public Optional<List<TradeRecord>> findTrades(UUID playerId, int limit) {
+        List<TradeRecord> trades = new ArrayList<>();
+        try (PreparedStatement query = getConnection().prepareStatement(SELECT_PLAYER_TRADES)) {
+            query.setString(1, playerId.toString());
+            query.setInt(2, limit);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    trades.add(new TradeRecord(
+                            rows.getLong("created_at"),
+                            playerId,
+                            rows.getString("material"),
+                            JournalRecord.Type.valueOf(rows.getString("side")),
+                            rows.getInt("amount"),
+                            rows.getLong("total_price")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to query trades for " + playerId, e);
+            return Optional.empty();
+        }
+        return Optional.of(trades);
+    }
+
+    @Override
+    public void close() {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to close SQLite connection", e);
+        }
+        connection = null;
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection != null) return connection;
+
+        Connection db = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = db.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+        db.setAutoCommit(false);
+        db.commit();
+        connection = db;
+        return db;
+    }
+
+    private long readJournalSequence(Connection db) throws SQLException {
+        try (PreparedStatement query = db.prepareStatement("SELECT meta_value FROM market_meta WHERE meta_key = ?")) {
+            query.setString(1, JOURNAL_SEQUENCE_KEY);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() ? rows.getLong(1) : 0L;
+            }
+        }
+    }
+
+    private static void bindItem(PreparedStatement statement, String key, MarketItemSnapshot item) throws SQLException {
+        statement.setString(1, key);
+        statement.setString(2, item.material());
+        statement.setString(3, item.category());
+        statement.setInt(4, item.slot());
+        statement.setLong(5, item.basePrice());
+        statement.setLong(6, item.currentPrice());
+        statement.setLong(7, item.priceVariation());
+        statement.setDouble(8, item.taxRate());
+        statement.setInt(9, item.originalStock());
+        statement.setInt(10, item.baseStock());
+        statement.setInt(11, item.currentStock());
+        statement.setDouble(12, item.stockRegenerationMultiplier());
+        statement.setDouble(13, item.stockRegenerationRate());
+        statement.setLong(14, item.nextUpdateTime());
+        statement.setInt(15, item.stockSurplus());
+        statement.setLong(16, item.lastActivity());
+        statement.setBytes(17, encodeHistory(item.priceHistory()));
+    }
+
+    private static MarketItemSnapshot readItem(ResultSet rows) throws SQLException {
+        return new MarketItemSnapshot(
+                rows.getString("material"),
+                rows.getString("category"),
+                rows.getInt("slot"),
+                rows.getLong("base_price"),
+                rows.getLong("current_price"),
+                rows.getLong("price_variation"),
+                rows.getDouble("tax_rate"),
+                rows.getInt("original_stock"),
+                rows.getInt("base_stock"),
+                rows.getInt("current_stock"),
+                rows.getDouble("stock_regeneration_multiplier"),
+                rows.getDouble("stock_regeneration_rate"),
+                rows.getLong("next_update_time"),
+                rows.getInt("stock_surplus"),
+                rows.getLong("last_activity"),
+                decodeHistory(rows.getBytes("price_history"))
+        );
+    }
+
+    private static byte[] encodeHistory(long[] history) {
+        ByteBuffer buffer = ByteBuffer.allocate(history.length * Long.BYTES);
+        buffer.asLongBuffer().put(history);
+        return buffer.array();
+    }
+
+    private static long[] decodeHistory(byte[] bytes) {
+        long[] history = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(history);
+        return history;
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Where market state and trades are persisted.
+ */
+public enum StorageType {
+    /** items.yml plus the binary snapshot; trades are only kept in the journal. */
+    YAML,
+    /** An embedded SQLite database with an indexed trade table. */
+    SQLITE;
+
+    private static final Logger LOGGER = Logger.getLogger(StorageType.class.getName());
+
+    public static StorageType fromConfig(String value) {
+        if (value == null) return YAML;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unknown storage type '" + value + "', using yaml");
+            return YAML;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import java.util.UUID;
+
+/**
+ * A completed trade, as kept by stores that support trade history.
+ *
+ * @param totalPrice amount paid by the buyer, or received by the seller after tax
+ */
+public record TradeRecord(
+        long timestamp,
+        UUID playerId,
+        String material,
+        JournalRecord.Type side,
+        int amount,
+        long totalPrice
+) {
+}
@@ -0,0 +1,338 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of market events between snapshots.
+ * <p>
+ * The main thread only encodes records into a pending buffer. A dedicated journal thread
+ * appends everything that accumulated since its last write with a single {@link FileChannel}
+ * write and one {@code force}, so a burst of trades costs one disk sync (group commit).
+ * <p>
+ * Each record is framed as {@code [length][body][crc32]}; a torn or corrupt tail left by a
+ * crash is detected on replay and cut off. Once a snapshot covering sequence {@code n} is on
+ * disk, {@link #compact} rewrites the journal keeping only later records.
+ */
+public class TransactionJournal {
+    private static final Logger LOGGER = Logger.getLogger(TransactionJournal.class.getName());
+    private static final int MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + 1;
+    private static final int MAX_RECORD_BYTES = 1024;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private final Path path;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftalismMarket-Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private boolean flushScheduled;
+
+    // Main thread only
+    private long lastSequence;
+
+    // Journal thread only, once opened
+    private FileChannel channel;
+
+    public TransactionJournal(File file) {
+        this.path = file.toPath();
+    }
+
+    /**
+     * Reads the journal, passes every intact record after {@code snapshotSequence} to the
+     * consumer in order, and opens the journal for appending. Main thread, before any append.
+     *
+     * @return the number of records replayed
+     */
+    public int replay(long snapshotSequence, Consumer<JournalRecord> consumer) {
+        awaitWriter(() -> closeChannel());
+
+        List<JournalRecord> records = new ArrayList<>();
+        long validLength = read(records);
+        lastSequence = snapshotSequence;
+
+        int replayed = 0;
+        for (JournalRecord record : records) {
+            // Applying a record appends history, so records the snapshot covers must not be re-applied
+            if (record.sequence() <= snapshotSequence) continue;
+            consumer.accept(record);
+            lastSequence = record.sequence();
+            replayed++;
+        }
+
+        awaitWriter(() -> openChannel(validLength));
+        return replayed;
+    }
+
+    /**
+     * Journals the item's current state as the outcome of an event. Main thread only.
+     */
+    public void append(JournalRecord.Type type, MarketItem item, int amount) {
+        JournalRecord record = JournalRecord.of(type, ++lastSequence, System.currentTimeMillis(), item, amount);
+        byte[] frame = encode(record);
+
+        synchronized (lock) {
+            pending.writeBytes(frame);
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        writer.execute(this::flush);
+    }
+
+    /**
+     * @return the sequence of the latest journaled record; a snapshot taken now covers it
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Drops every record up to {@code snapshotSequence}, which must already be covered by a
+     * snapshot on disk. Runs on the journal thread after pending appends.
+     */
+    public CompletableFuture<Void> compact(long snapshotSequence) {
+        return CompletableFuture.runAsync(() -> rewrite(snapshotSequence), writer);
+    }
+
+    /**
+     * Writes pending records and closes the journal, blocking until done.
+     */
+    public void close() {
+        writer.execute(() -> {
+            flush();
+            closeChannel();
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.severe("Timed out waiting for the transaction journal to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.severe("Interrupted while waiting for the transaction journal to be written");
+        }
+    }
+
+    // Journal thread only
+    private void flush() {
+        byte[] batch;
+        synchronized (lock) {
+            batch = pending.toByteArray();
+            pending = new ByteArrayOutputStream();
+            flushScheduled = false;
+        }
+        if (batch.length == 0 || channel == null) return;
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to append to transaction journal", e);
+        }
+    }
+
+    // Journal thread only
+    private void rewrite(long snapshotSequence) {
+        flush();
+        closeChannel();
+
+        List<JournalRecord> records = new ArrayList<>();
+        read(records);
+
+        ByteArrayOutputStream kept = new ByteArrayOutputStream();
+        writeHeader(kept);
+        for (JournalRecord record : records) {
+            if (record.sequence() > snapshotSequence) kept.writeBytes(encode(record));
+        }
+
+        try {
+            Path temp = AtomicFiles.temporaryFor(path);
+            try (FileChannel out = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(kept.toByteArray());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            AtomicFiles.replace(temp, path);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to compact transaction journal", e);
+        }
+        openChannel(-1);
+    }
+
+    /**
+     * Decodes intact records into {@code records}.
+     *
+     * @return the byte length of the intact prefix, or -1 if the file is missing or unrecognised
+     */
+    private long read(List<JournalRecord> records) {
+        if (!Files.exists(path)) return -1;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                LOGGER.warning("Ignoring unrecognised transaction journal " + path.getFileName());
+                return -1;
+            }
+
+            long validLength = HEADER_BYTES;
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return validLength;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) return truncated(validLength);
+
+                byte[] body = new byte[length];
+                int checksum;
+                try {
+                    in.readFully(body);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return truncated(validLength);
+                }
+
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) return truncated(validLength);
+
+                try {
+                    records.add(decode(body));
+                } catch (IOException e) {
+                    return truncated(validLength);
+                }
+                validLength += Integer.BYTES + length + Integer.BYTES;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to read transaction journal", e);
+            return -1;
+        }
+    }
+
+    private long truncated(long validLength) {
+        LOGGER.warning("Transaction journal has an incomplete tail after byte " + validLength + "; discarding it");
+        return validLength;
+    }
+
+    /**
+     * Opens the journal for appending. A negative length starts a fresh journal when the
+     * existing file is missing or unusable; otherwise the file is cut to the intact prefix.
+     */
+    private void openChannel(long validLength) {
+        try {
+            if (validLength < 0 && !hasHeader()) {
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                writeHeader(header);
+                AtomicFiles.write(path, header.toByteArray());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(validLength < 0 ? channel.size() : validLength);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to open transaction journal; trades will not be journaled", e);
+            channel = null;
+        }
+    }
+
+    private boolean hasHeader() throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_BYTES) return false;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            return in.readInt() == MAGIC && in.readUnsignedByte() == VERSION;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close transaction journal", e);
+        }
+        channel = null;
+    }
+
+    private void awaitWriter(Runnable task) {
+        CompletableFuture.runAsync(task, writer).join();
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put((byte) VERSION);
+        out.writeBytes(header.array());
+    }
+
+    private static byte[] encode(JournalRecord record) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeByte(record.type().ordinal());
+            out.writeLong(record.sequence());
+            out.writeLong(record.timestamp());
+            out.writeUTF(record.material());
+            out.writeInt(record.amount());
+            out.writeInt(record.currentStock());
+            out.writeInt(record.baseStock());
+            out.writeLong(record.currentPrice());
+            out.writeLong(record.priceVariation());
+            out.writeDouble(record.stockRegenerationRate());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return ByteBuffer.allocate(Integer.BYTES + bytes.length + Integer.BYTES)
+                .putInt(bytes.length)
+                .put(bytes)
+                .putInt((int) crc.getValue())
+                .array();
+    }
+
+    private static JournalRecord decode(byte[] body) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            int type = in.readUnsignedByte();
+            if (type >= TYPES.length) throw new IOException("Unknown journal record type " + type);
+            return new JournalRecord(
+                    TYPES[type],
+                    in.readLong(),
+                    in.readLong(),
+                    in.readUTF(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readLong(),
+                    in.readLong(),
+                    in.readDouble()
+            );
+        }
+    }
+}
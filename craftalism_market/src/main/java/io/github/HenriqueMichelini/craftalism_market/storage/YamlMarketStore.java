@@ -0,0 +1,116 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Stores items in items.yml, with {@link MarketSnapshotFile} as a faster binary copy for
+ * enable. Trade history is not kept beyond the journal.
+ */
+public class YamlMarketStore implements MarketStore {
+    public static final String JOURNAL_SEQUENCE_PATH = "journal_sequence";
+    private static final Logger LOGGER = Logger.getLogger(YamlMarketStore.class.getName());
+
+    private final File itemsFile;
+    private final MarketSnapshotFile snapshotFile;
+
+    // Storage thread only
+    private YamlConfiguration itemsDocument;
+    private final Map<String, MarketItemSnapshot> latestSnapshots = new HashMap<>();
+
+    public YamlMarketStore(File itemsFile, File snapshotFile) {
+        this.itemsFile = itemsFile;
+        this.snapshotFile = new MarketSnapshotFile(snapshotFile);
+    }
+
+    /**
+     * Reads the binary snapshot while it is newer than items.yml; otherwise items.yml is the seed.
+     */
+    @Override
+    public Loaded load() {
+        return snapshotFile.isNewerThan(itemsFile) ? snapshotFile.load() : null;
+    }
+
+    @Override
+    public boolean saveItems(Map<String, MarketItemSnapshot> items, long journalSequence) {
+        latestSnapshots.putAll(items);
+
+        YamlConfiguration document = getItemsDocument();
+        items.forEach((key, snapshot) -> writeSnapshot(document, "items." + key + ".", snapshot));
+        document.set(JOURNAL_SEQUENCE_PATH, journalSequence);
+        boolean saved = writeDocument(document);
+
+        // Written after items.yml so it is the newer of the two and is preferred on enable
+        snapshotFile.write(latestSnapshots, journalSequence);
+        return saved;
+    }
+
+    @Override
+    public void recordTrades(List<TradeRecord> trades) {
+        // Trades are only kept in the journal
+    }
+
+    @Override
+    public Optional<List<TradeRecord>> findTrades(UUID playerId, int limit) {
+        // Trades are only kept in the journal, which is not indexed by player
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() {
+        itemsDocument = null;
+    }
+
+    /**
+     * Loads items.yml once and keeps it; later saves only overwrite the changed sections.
+     * Items that are not part of the market (e.g. failed to parse) are dropped on the first save.
+     */
+    private YamlConfiguration getItemsDocument() {
+        if (itemsDocument != null) return itemsDocument;
+
+        itemsDocument = YamlConfiguration.loadConfiguration(itemsFile);
+        ConfigurationSection section = itemsDocument.getConfigurationSection("items");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                if (!latestSnapshots.containsKey(key)) section.set(key, null);
+            }
+        }
+        return itemsDocument;
+    }
+
+    private void writeSnapshot(YamlConfiguration itemsConfig, String path, MarketItemSnapshot item) {
+        itemsConfig.set(path + "material", item.material());
+        itemsConfig.set(path + "category", item.category());
+        itemsConfig.set(path + "slot", item.slot());
+        itemsConfig.set(path + "base_price", item.basePrice());
+        itemsConfig.set(path + "current_price", item.currentPrice());
+        itemsConfig.set(path + "price_variation", item.priceVariation());
+        itemsConfig.set(path + "tax_rate", item.taxRate());
+        itemsConfig.set(path + "base_stock", item.baseStock());
+        itemsConfig.set(path + "current_stock", item.currentStock());
+        itemsConfig.set(path + "stock_regeneration_multiplier", item.stockRegenerationMultiplier());
+        itemsConfig.set(path + "stock_regeneration_rate", item.stockRegenerationRate());
+        itemsConfig.set(path + "next_update_time", item.nextUpdateTime());
+        itemsConfig.set(path + "last_activity", item.lastActivity());
+
+        List<Long> priceHistory = Arrays.stream(item.priceHistory()).boxed().toList();
+        itemsConfig.set(path + "price_history", priceHistory);
+    }
+
+    private boolean writeDocument(YamlConfiguration document) {
+        try {
+            AtomicFiles.write(itemsFile.toPath(), document.saveToString().getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            LOGGER.severe("Failed to save items config: " + e.getMessage());
+            return false;
+        }
+    }
+}
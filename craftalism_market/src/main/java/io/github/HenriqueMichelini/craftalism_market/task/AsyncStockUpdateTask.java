@@ -0,0 +1,106 @@
+package io.github.HenriqueMichelini.craftalism_market.task;
+
+import io.github.HenriqueMichelini.craftalism_market.logic.PricingEngine;
+import io.github.HenriqueMichelini.craftalism_market.stock.RegenerationModel;
+import io.github.HenriqueMichelini.craftalism_market.stock.RegenerationResult;
+import io.github.HenriqueMichelini.craftalism_market.stock.RegenerationSnapshot;
+import io.github.HenriqueMichelini.craftalism_market.stock.StockHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Regeneration sweep that keeps the math and logging off the tick thread.
+ * <p>
+ * Each run snapshots the due items on the main thread, computes their next state on a
+ * dedicated worker and hands the results back to the main thread, where
+ * {@link StockHandler#applyRegenerationResults} swaps them in and notifies the GUIs.
+ * A new sweep is not started while the previous one is still in flight.
+ */
+public class AsyncStockUpdateTask extends BukkitRunnable {
+    private static final Logger LOGGER = Logger.getLogger(AsyncStockUpdateTask.class.getName());
+
+    private final Plugin plugin;
+    private final StockHandler stockHandler;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftalismMarket-Regeneration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean sweepInFlight;
+
+    public AsyncStockUpdateTask(Plugin plugin, StockHandler stockHandler) {
+        this.plugin = plugin;
+        this.stockHandler = stockHandler;
+    }
+
+    @Override
+    public void run() {
+        if (sweepInFlight) return;
+
+        long now = System.currentTimeMillis();
+        List<RegenerationSnapshot> snapshots = stockHandler.pollDueSnapshots(now);
+        if (snapshots.isEmpty()) return;
+
+        sweepInFlight = true;
+        try {
+            worker.execute(() -> {
+                List<RegenerationResult> results = computeAll(snapshots);
+                if (!plugin.isEnabled()) return;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    sweepInFlight = false;
+                    stockHandler.applyRegenerationResults(results, System.currentTimeMillis());
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            sweepInFlight = false;
+        }
+    }
+
+    /**
+     * Stops the worker; sweeps still in flight are discarded and their items stay unchanged.
+     */
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private List<RegenerationResult> computeAll(List<RegenerationSnapshot> snapshots) {
+        List<RegenerationResult> results = new ArrayList<>(snapshots.size());
+        for (RegenerationSnapshot snapshot : snapshots) {
+            try {
+                RegenerationResult result = RegenerationModel.regenerate(snapshot);
+                results.add(result);
+                logResult(result);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error computing stock for item: " + snapshot.item().getMaterial(), e);
+            }
+        }
+        return results;
+    }
+
+    private void logResult(RegenerationResult result) {
+        RegenerationSnapshot snapshot = result.snapshot();
+        LOGGER.info(() -> String.format(
+                "%s | Stock: %d → %d | Price: %s → %s",
+                snapshot.item().getMaterial(),
+                snapshot.currentStock(),
+                result.newStock(),
+                formatScaled(snapshot.currentPrice()),
+                formatScaled(result.newPrice())
+        ));
+    }
+
+    // MoneyFormat is shared with the main thread, so the worker formats scaled prices itself
+    private static String formatScaled(long price) {
+        return String.format("%.2f", price / (double) PricingEngine.SCALE);
+    }
+}
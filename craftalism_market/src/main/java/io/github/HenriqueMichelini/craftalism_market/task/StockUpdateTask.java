@@ -12,9 +12,6 @@ public class StockUpdateTask extends BukkitRunnable {
 
     @Override
     public void run() {
-//        System.out.println("Processing stock updates (Interval: " +
-//                stockHandler.getUpdateIntervalMinutes() + " minutes)");
-        stockHandler.getUpdateIntervalMinutes(); // Force config reload
         stockHandler.processAllActiveItems();
     }
 }
\ No newline at end of file
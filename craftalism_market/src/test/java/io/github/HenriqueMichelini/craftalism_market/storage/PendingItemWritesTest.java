@@ -0,0 +1,101 @@
+package io.github.HenriqueMichelini.craftalism_market.storage;
+
+import io.github.HenriqueMichelini.craftalism_market.models.MarketItemSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingItemWritesTest {
+
+    @Test
+    void failedSaveIsMergedIntoTheNextBatch() {
+        FlakyStore store = new FlakyStore(1);
+        PendingItemWrites writes = new PendingItemWrites(store);
+
+        assertFalse(writes.write(Map.of("stone", snapshot("STONE", 10)), 1));
+        assertTrue(writes.write(Map.of("dirt", snapshot("DIRT", 20)), 2));
+
+        Map<String, MarketItemSnapshot> saved = store.saves.get(1);
+        assertEquals(2, saved.size());
+        assertEquals(10, saved.get("stone").currentStock());
+        assertEquals(20, saved.get("dirt").currentStock());
+        assertEquals(2, store.journalSequence);
+    }
+
+    @Test
+    void newerSnapshotReplacesTheFailedOne() {
+        FlakyStore store = new FlakyStore(1);
+        PendingItemWrites writes = new PendingItemWrites(store);
+
+        assertFalse(writes.write(Map.of("stone", snapshot("STONE", 10)), 1));
+        assertTrue(writes.write(Map.of("stone", snapshot("STONE", 7)), 2));
+
+        assertEquals(7, store.saves.get(1).get("stone").currentStock());
+    }
+
+    @Test
+    void successfulSaveIsNotRepeated() {
+        FlakyStore store = new FlakyStore(0);
+        PendingItemWrites writes = new PendingItemWrites(store);
+
+        assertTrue(writes.write(Map.of("stone", snapshot("STONE", 10)), 1));
+        assertTrue(writes.write(Map.of("dirt", snapshot("DIRT", 20)), 2));
+
+        assertEquals(Set.of("dirt"), store.saves.get(1).keySet());
+    }
+
+    private static MarketItemSnapshot snapshot(String material, int currentStock) {
+        return new MarketItemSnapshot(material, "blocks", 0, 10000, 10000, 100, 0.1,
+                64, 64, currentStock, 1.0, 1.0, 0L, 0, 0L, new long[0]);
+    }
+
+    /**
+     * Fails the first {@code failures} saves the way a rolled back transaction does: nothing is kept.
+     */
+    private static final class FlakyStore implements MarketStore {
+        private final List<Map<String, MarketItemSnapshot>> saves = new ArrayList<>();
+        private int failures;
+        private long journalSequence;
+
+        private FlakyStore(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public Loaded load() {
+            return null;
+        }
+
+        @Override
+        public boolean saveItems(Map<String, MarketItemSnapshot> items, long journalSequence) {
+            saves.add(new HashMap<>(items));
+            if (failures > 0) {
+                failures--;
+                return false;
+            }
+            this.journalSequence = journalSequence;
+            return true;
+        }
+
+        @Override
+        public void recordTrades(List<TradeRecord> trades) {
+        }
+
+        @Override
+        public Optional<List<TradeRecord>> findTrades(UUID playerId, int limit) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}